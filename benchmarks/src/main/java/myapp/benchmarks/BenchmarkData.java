@@ -0,0 +1,63 @@
+package myapp.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import myapp.dto.UserResource;
+import myapp.model.User;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.AnnotationLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Общие данные для бенчмарков: пользователи, ObjectMapper с HAL-модулем как в приложении
+ * и имитация текущего HTTP-запроса для построения ссылок.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static User[] users(int count) {
+        User[] users = new User[count];
+        for (int i = 0; i < count; i++) {
+            users[i] = User.builder()
+                    .id((long) i + 1)
+                    .name("User " + i)
+                    .email("user" + i + "@example.com")
+                    .age(18 + i % 60)
+                    .build();
+        }
+        return users;
+    }
+
+    static UserResource resource(long id) {
+        return UserResource.builder()
+                .id(id)
+                .name("User " + id)
+                .email("user" + id + "@example.com")
+                .age(30)
+                .build();
+    }
+
+    static ObjectMapper halObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new AnnotationLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    static void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.setServerName("localhost");
+        request.setServerPort(8081);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    static void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+}
@@ -0,0 +1,58 @@
+package myapp.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import myapp.dto.UserResource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация HAL-ответов user-service: одиночный EntityModel (GET /api/users/{id})
+ * и страница из {@code pageSize} элементов (GET /api/users).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HalSerializationBenchmark {
+
+    @Param({"50", "1000"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private EntityModel<UserResource> single;
+    private CollectionModel<EntityModel<UserResource>> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.halObjectMapper();
+        single = EntityModel.of(BenchmarkData.resource(1L), Link.of("http://localhost:8081/api/users/1"));
+
+        List<EntityModel<UserResource>> items = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            items.add(EntityModel.of(BenchmarkData.resource(id), Link.of("http://localhost:8081/api/users/" + id)));
+        }
+        page = CollectionModel.of(items,
+                Link.of("http://localhost:8081/api/users?after=0&size=" + pageSize),
+                Link.of("http://localhost:8081/api/users?after=" + pageSize + "&size=" + pageSize, IanaLinkRelations.NEXT));
+    }
+
+    @Benchmark
+    public byte[] entityModel() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] collectionModel() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,72 @@
+package myapp.benchmarks;
+
+import myapp.controller.UserController;
+import myapp.controller.UserLinks;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.hateoas.Link;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Построение ссылок так, как это делает UserController: прокси methodOn на каждый вызов
+ * против ссылки от класса контроллера и UserLinks с базовым URI, разрешённым один раз на запрос.
+ * Запрос привязан к потоку, как внутри DispatcherServlet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinkBuildingBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private long id;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.bindRequest();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.unbindRequest();
+    }
+
+    @Benchmark
+    public Link methodOnSelfLink() {
+        return linkTo(methodOn(UserController.class).getUser(++id, null)).withSelfRel();
+    }
+
+    @Benchmark
+    public Link controllerSlashSelfLink() {
+        return linkTo(UserController.class).slash(++id).withSelfRel();
+    }
+
+    @Benchmark
+    public Link userLinksSelfLink() {
+        return UserLinks.forCurrentRequest().self(++id);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void methodOnPage(Blackhole blackhole) {
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            blackhole.consume(linkTo(methodOn(UserController.class).getUser(i, null)).withSelfRel());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void userLinksPage(Blackhole blackhole) {
+        UserLinks links = UserLinks.forCurrentRequest();
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            blackhole.consume(links.self(i));
+        }
+    }
+}
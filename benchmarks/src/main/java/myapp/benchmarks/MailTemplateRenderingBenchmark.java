@@ -0,0 +1,67 @@
+package myapp.benchmarks;
+
+import notificationservice.dto.OperationType;
+import notificationservice.template.MailTemplate;
+import notificationservice.template.MailTemplates;
+import notificationservice.template.RenderedMail;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рендеринг письма: скомпилированный шаблон против String.replace по исходному тексту
+ * при росте шаблона (paragraphs абзацев с подстановками), плюс полный путь MailTemplates
+ * с кэшем шаблонов и пулом буферов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MailTemplateRenderingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int paragraphs;
+
+    private String source;
+    private MailTemplate compiled;
+    private StringBuilder buffer;
+    private MailTemplates mailTemplates;
+    private Map<String, String> model;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            text.append("Здравствуйте, {{name}}! Аккаунт {{email}} (id {{userId}}) был изменён. ")
+                    .append("Если это были не вы, свяжитесь с поддержкой.\n");
+        }
+        source = text.toString();
+        compiled = MailTemplate.compile(source);
+        buffer = new StringBuilder(source.length() * 2);
+        mailTemplates = new MailTemplates(Locale.forLanguageTag("ru"));
+        model = Map.of("name", "Анна", "email", "user42@example.com", "userId", "42");
+    }
+
+    @Benchmark
+    public String stringReplace() {
+        return source.replace("{{name}}", model.get("name"))
+                .replace("{{email}}", model.get("email"))
+                .replace("{{userId}}", model.get("userId"));
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        buffer.setLength(0);
+        compiled.render(model, buffer);
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public RenderedMail mailTemplates() {
+        return mailTemplates.render(OperationType.UPDATE, null, model);
+    }
+}
@@ -0,0 +1,61 @@
+package myapp.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import myapp.broker.UserEventSerializer;
+import myapp.dto.OperationType;
+import myapp.dto.UserEvent;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация UserEvent для Kafka: голый Jackson, JsonSerializer из spring-kafka, которым
+ * продюсер user-service пользовался раньше, и двоичный UserEventSerializer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserEventSerializationBenchmark {
+
+    private static final String TOPIC = "user-events";
+
+    private ObjectMapper objectMapper;
+    private Serializer<UserEvent> kafkaSerializer;
+    private Serializer<UserEvent> binarySerializer;
+    private UserEvent event;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        kafkaSerializer = new JsonSerializer<>(objectMapper);
+        binarySerializer = new UserEventSerializer();
+        event = new UserEvent(OperationType.CREATE, 42L, "user42@example.com", 1_000_042L, Instant.now());
+    }
+
+    @TearDown
+    public void tearDown() {
+        kafkaSerializer.close();
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] kafkaJsonSerializer() {
+        return kafkaSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] binarySerializer() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+}
@@ -0,0 +1,56 @@
+package myapp.benchmarks;
+
+import myapp.dto.UserDto;
+import myapp.dto.UserResource;
+import myapp.mapper.UserMapper;
+import myapp.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость преобразования сущности: билдер Lombok для UserDto и UserResource
+ * (последний дополнительно создаёт пустой список ссылок RepresentationModel).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserMapperBenchmark {
+
+    private static final int USERS = 1024;
+
+    private User[] users;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkData.users(USERS);
+    }
+
+    private User next() {
+        index = (index + 1) & (USERS - 1);
+        return users[index];
+    }
+
+    @Benchmark
+    public UserResource toResource() {
+        return UserMapper.toResource(next());
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return UserMapper.toDto(next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public void toResourcePage(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(UserMapper.toResource(user));
+        }
+    }
+}
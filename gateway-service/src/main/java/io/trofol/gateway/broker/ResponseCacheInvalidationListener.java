@@ -0,0 +1,47 @@
+package io.trofol.gateway.broker;
+
+import io.trofol.gateway.cache.ResponseCache;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Каждая реплика шлюза читает user-events в собственной группе и сбрасывает закэшированные
+ * ответы по ключу события. Ключ, не являющийся id (email у события без id), сбрасывает весь кэш.
+ */
+@Component
+public class ResponseCacheInvalidationListener {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheInvalidationListener(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @KafkaListener(topics = "${app.kafka.topic-name:user-events}",
+            groupId = "${gateway.response-cache.invalidation-group-prefix:gateway-response-cache}-${random.uuid}",
+            containerFactory = "userEventKeyListenerContainerFactory")
+    public void onUserEvents(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            Long userId = parseId(record.key());
+            if (userId == null) {
+                responseCache.invalidateAll();
+                return;
+            }
+            responseCache.invalidateUser(userId);
+        }
+    }
+
+    private static Long parseId(String key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.trofol.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Снимок ответа upstream: статус, заголовки без hop-by-hop и тело целиком.
+ * epoch — значение счётчика инвалидаций на момент отправки запроса, по нему отсекаются
+ * ответы, прочитанные до последнего сброса своей карточки или списков.
+ */
+public record CachedResponse(int status, HttpHeaders headers, byte[] body, long storedAt, long epoch) {
+
+    public CachedResponse {
+        headers = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+}
@@ -0,0 +1,219 @@
+package io.trofol.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.trofol.gateway.config.ResponseCacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш GET-ответов шлюза. Ответы на карточку пользователя лежат под его id, чтобы событие
+ * из user-events сбрасывало их одним обращением; ответы на списки и поиск лежат под путём
+ * с query-строкой и сбрасываются целиком через счётчик инвалидаций, без обхода кэша.
+ * Внутри ключа хранится несколько вариантов ответа по Accept и Accept-Encoding.
+ * Для карточек счётчик запоминается по каждому id: сброс одного пользователя не мешает
+ * сохранять ответы на карточки остальных.
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+
+    static final int MAX_VARIANTS = 8;
+
+    private final Cache<Object, Map<String, CachedResponse>> responses;
+    private final Ticker ticker;
+    private final long ttlNanos;
+    private final Pattern itemPath;
+    private final Pattern bulkWritePath;
+    private final AtomicLong epoch = new AtomicLong();
+    private volatile long collectionsPurgedAt;
+    /** Значение счётчика при последнем сбросе карточки, по id пользователя. */
+    private final Cache<Long, Long> itemsPurgedAt;
+    /** Нижняя граница для карточек без своей отметки: invalidateAll и вытесненные отметки. */
+    private volatile long itemsFloor;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter bypasses;
+
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties) {
+        this(properties, Ticker.systemTicker());
+    }
+
+    ResponseCache(ResponseCacheProperties properties, Ticker ticker) {
+        this.ticker = ticker;
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.itemPath = Pattern.compile(properties.getItemPathPattern());
+        this.bulkWritePath = Pattern.compile(properties.getBulkWritePathPattern());
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        // Вытесненная отметка поднимает общую границу: ответ, прочитанный до её сброса, всё равно не сохранится
+        this.itemsPurgedAt = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .executor(Runnable::run)
+                .<Long, Long>evictionListener((userId, purgedAt, cause) -> raiseItemsFloor(purgedAt))
+                .build();
+    }
+
+    /**
+     * Значение счётчика инвалидаций; запоминается до отправки запроса upstream и передаётся в {@link #put}.
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    public long now() {
+        return ticker.read();
+    }
+
+    public CachedResponse get(String path, String query, String variant) {
+        Long userId = userId(path);
+        Map<String, CachedResponse> variants = responses.getIfPresent(key(userId, path, query));
+        CachedResponse response = variants == null ? null : variants.get(variantKey(userId, query, variant));
+        if (response == null || ticker.read() - response.storedAt() >= ttlNanos
+                || (userId == null && response.epoch() < collectionsPurgedAt)) {
+            increment(misses);
+            return null;
+        }
+        increment(hits);
+        return response;
+    }
+
+    /**
+     * Ответ на карточку не сохраняется, если за время запроса сбросили эту карточку:
+     * иначе ответ, прочитанный до записи, пережил бы её сброс. Проверка идёт под блокировкой
+     * ключа, а отметка сброса ставится до удаления ключа, поэтому сброс, начавшийся после
+     * проверки, удалит и только что записанный ответ.
+     */
+    public void put(String path, String query, String variant, CachedResponse response) {
+        Long userId = userId(path);
+        String variantKey = variantKey(userId, query, variant);
+        responses.asMap().compute(key(userId, path, query), (key, current) -> {
+            if (response.epoch() < (userId != null ? itemPurgedAt(userId) : collectionsPurgedAt)) {
+                return current;
+            }
+            if (current == null) {
+                return Map.of(variantKey, response);
+            }
+            if (current.size() >= MAX_VARIANTS && !current.containsKey(variantKey)) {
+                return current;
+            }
+            Map<String, CachedResponse> updated = new HashMap<>(current);
+            updated.put(variantKey, response);
+            return Map.copyOf(updated);
+        });
+    }
+
+    public void recordBypass() {
+        increment(bypasses);
+    }
+
+    /**
+     * Сбрасывает карточку пользователя и все списки, в которые он мог попасть.
+     */
+    public void invalidateUser(long userId) {
+        long purgedAt = epoch.incrementAndGet();
+        collectionsPurgedAt = purgedAt;
+        itemsPurgedAt.put(userId, purgedAt);
+        responses.invalidate(userId);
+    }
+
+    /**
+     * Сбрасывает только списки и поиск: новый пользователь не меняет уже закэшированные карточки.
+     */
+    public void invalidateCollections() {
+        collectionsPurgedAt = epoch.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        long purgedAt = epoch.incrementAndGet();
+        collectionsPurgedAt = purgedAt;
+        raiseItemsFloor(purgedAt);
+        responses.invalidateAll();
+    }
+
+    private long itemPurgedAt(long userId) {
+        Long purgedAt = itemsPurgedAt.getIfPresent(userId);
+        return purgedAt == null ? itemsFloor : Math.max(purgedAt, itemsFloor);
+    }
+
+    private synchronized void raiseItemsFloor(long purgedAt) {
+        if (purgedAt > itemsFloor) {
+            itemsFloor = purgedAt;
+        }
+    }
+
+    /**
+     * id пользователя, если путь ведёт на карточку, иначе null.
+     */
+    public Long userId(String path) {
+        Matcher matcher = itemPath.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Запись по этому пути может изменить любые карточки, а не только свою.
+     */
+    public boolean isBulkWrite(String path) {
+        return bulkWritePath.matcher(path).matches();
+    }
+
+    long size() {
+        responses.cleanUp();
+        return responses.estimatedSize();
+    }
+
+    private static Object key(Long userId, String path, String query) {
+        if (userId != null) {
+            return userId;
+        }
+        return query == null || query.isEmpty() ? path : path + '?' + query;
+    }
+
+    private static String variantKey(Long userId, String query, String variant) {
+        return userId == null || query == null || query.isEmpty() ? variant : query + '\n' + variant;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, "gateway-responses");
+        hits = counter(registry, "hit");
+        misses = counter(registry, "miss");
+        bypasses = counter(registry, "bypass");
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("gateway.response.cache.requests")
+                .description("GET-запросы через кэш ответов шлюза: hit, miss или bypass (кэш не применим)")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,163 @@
+package io.trofol.gateway.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Фильтр маршрута {@code AdaptiveConcurrency}: держит число одновременных запросов к upstream
+ * в пределах {@link AdaptiveConcurrencyLimit} и отвечает 503 с Retry-After на запросы сверх него,
+ * не дожидаясь, пока upstream начнёт тормозить или падать. Предел переживает обновление маршрутов,
+ * если его настройки не изменились.
+ */
+@Component
+public class AdaptiveConcurrencyGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveConcurrencyGatewayFilterFactory.Config> {
+
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public AdaptiveConcurrencyGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "default";
+        AdaptiveConcurrencyLimit limit = limits.compute(routeId, (id, existing) ->
+                existing != null && existing.getSettings().equals(config.settings())
+                        ? existing : new AdaptiveConcurrencyLimit(config.settings()));
+        registerMeters(routeId);
+        Counter rejected = meterRegistry.counter("gateway.concurrency.rejected", "route", routeId);
+
+        return (exchange, chain) -> {
+            if (!limit.tryAcquire()) {
+                rejected.increment();
+                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return exchange.getResponse().setComplete();
+            }
+            long start = System.nanoTime();
+            return chain.filter(exchange).doFinally(signal -> {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                if (signal == SignalType.CANCEL) {
+                    limit.onIgnored();
+                } else if (signal == SignalType.ON_ERROR || status != null && status.is5xxServerError()) {
+                    limit.onDropped();
+                } else {
+                    limit.onSuccess(System.nanoTime() - start);
+                }
+            });
+        };
+    }
+
+    private void registerMeters(String routeId) {
+        gauge("gateway.concurrency.limit", "Текущий адаптивный предел одновременных запросов", routeId,
+                AdaptiveConcurrencyLimit::getLimit);
+        gauge("gateway.concurrency.inflight", "Запросы к upstream в работе", routeId,
+                AdaptiveConcurrencyLimit::getInFlight);
+    }
+
+    private void gauge(String name, String description, String routeId, ToDoubleFunction<AdaptiveConcurrencyLimit> value) {
+        Gauge.builder(name, limits, map -> {
+                    AdaptiveConcurrencyLimit limit = map.get(routeId);
+                    return limit == null ? Double.NaN : value.applyAsDouble(limit);
+                })
+                .description(description)
+                .tag("route", routeId)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    public static class Config implements HasRouteId {
+        private String routeId;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2.0;
+        private double smoothing = 0.05;
+
+        AdaptiveConcurrencyLimit.Settings settings() {
+            return new AdaptiveConcurrencyLimit.Settings(initialLimit, minLimit, maxLimit,
+                    backoffRatio, latencyTolerance, smoothing);
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public Config setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public Config setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public Config setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public Config setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public Config setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public Config setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.trofol.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Адаптивный предел одновременных запросов к маршруту (AIMD по задержке). Базовая задержка —
+ * медленное EWMA по всем ответам. Ответ медленнее базовой в latencyTolerance раз, ошибка или 5xx
+ * умножают предел на backoffRatio. Быстрый ответ при загрузке не меньше половины предела
+ * добавляет к нему единицу. Запросы сверх предела не ждут, а сразу отклоняются.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final Settings settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double limit;
+    private double baselineRttNanos = -1;
+    private volatile int currentLimit;
+
+    public AdaptiveConcurrencyLimit(Settings settings) {
+        this.settings = settings;
+        this.limit = settings.initialLimit();
+        this.currentLimit = settings.initialLimit();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void onSuccess(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (baselineRttNanos < 0) {
+                baselineRttNanos = rttNanos;
+            }
+            if (rttNanos > baselineRttNanos * settings.latencyTolerance()) {
+                decrease();
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(settings.maxLimit(), limit + 1);
+            }
+            baselineRttNanos += settings.smoothing() * (rttNanos - baselineRttNanos);
+            currentLimit = (int) limit;
+        }
+    }
+
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            decrease();
+            currentLimit = (int) limit;
+        }
+    }
+
+    /**
+     * Запрос отменён клиентом: задержка о нагрузке ничего не говорит.
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    private void decrease() {
+        limit = Math.max(settings.minLimit(), limit * settings.backoffRatio());
+    }
+
+    public record Settings(int initialLimit, int minLimit, int maxLimit,
+                           double backoffRatio, double latencyTolerance, double smoothing) {
+    }
+}
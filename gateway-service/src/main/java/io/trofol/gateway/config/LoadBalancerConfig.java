@@ -0,0 +1,13 @@
+package io.trofol.gateway.config;
+
+import io.trofol.gateway.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Все lb://-маршруты балансируются по задержке и очереди экземпляров вместо round-robin.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
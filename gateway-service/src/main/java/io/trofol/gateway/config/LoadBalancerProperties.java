@@ -0,0 +1,76 @@
+package io.trofol.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public class LoadBalancerProperties {
+
+    private Duration decayTime = Duration.ofSeconds(10);
+    private Duration initialLatency = Duration.ofMillis(20);
+    private int failureThreshold = 5;
+    private Duration ejectionTime = Duration.ofSeconds(30);
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+    private int recentDecisions = 32;
+    /** Отменённый запрос, проработавший хотя бы столько, считается ошибкой (таймаут CircuitBreaker, зависание). */
+    private Duration slowCancelThreshold = Duration.ofSeconds(1);
+
+    public Duration getSlowCancelThreshold() {
+        return slowCancelThreshold;
+    }
+
+    public void setSlowCancelThreshold(Duration slowCancelThreshold) {
+        this.slowCancelThreshold = slowCancelThreshold;
+    }
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public Duration getInitialLatency() {
+        return initialLatency;
+    }
+
+    public void setInitialLatency(Duration initialLatency) {
+        this.initialLatency = initialLatency;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public Duration getEjectionTime() {
+        return ejectionTime;
+    }
+
+    public void setEjectionTime(Duration ejectionTime) {
+        this.ejectionTime = ejectionTime;
+    }
+
+    public Duration getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(Duration maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public int getRecentDecisions() {
+        return recentDecisions;
+    }
+
+    public void setRecentDecisions(int recentDecisions) {
+        this.recentDecisions = recentDecisions;
+    }
+}
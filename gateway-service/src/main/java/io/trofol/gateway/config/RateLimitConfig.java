@@ -0,0 +1,43 @@
+package io.trofol.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.trofol.gateway.ratelimit.ClientKeyResolver;
+import io.trofol.gateway.ratelimit.LocalRateLimiter;
+import io.trofol.gateway.ratelimit.LocalTokenBucketStore;
+import io.trofol.gateway.ratelimit.TokenBucketStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Ограничение частоты для фильтра RequestRateLimiter: {@link LocalRateLimiter} становится
+ * ограничителем по умолчанию, клиент определяется {@link ClientKeyResolver}.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(TokenBucketStore.class)
+    public TokenBucketStore tokenBucketStore(@Value("${gateway.rate-limit.maximum-buckets:100000}") long maximumBuckets,
+                                             @Value("${gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        return new LocalTokenBucketStore(maximumBuckets, idleTimeout);
+    }
+
+    @Bean
+    public LocalRateLimiter localRateLimiter(TokenBucketStore tokenBucketStore,
+                                             ConfigurationService configurationService,
+                                             MeterRegistry meterRegistry) {
+        return new LocalRateLimiter(tokenBucketStore, configurationService, meterRegistry);
+    }
+
+    @Bean
+    public KeyResolver clientKeyResolver(@Value("${gateway.rate-limit.trusted-proxies:}") List<String> trustedProxies) {
+        return new ClientKeyResolver(trustedProxies);
+    }
+}
@@ -0,0 +1,68 @@
+package io.trofol.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private Duration ttl = Duration.ofSeconds(30);
+    private long maximumSize = 10_000;
+    private DataSize maxBodySize = DataSize.ofKilobytes(256);
+    private String itemPathPattern = "^/api/users/(\\d+)$";
+    /** Записи, которые могут изменить любые карточки (пакетные операции, импорт). */
+    private String bulkWritePathPattern = "^/api/users/(batch|import)$";
+    private String invalidationGroupPrefix = "gateway-response-cache";
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public DataSize getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public void setMaxBodySize(DataSize maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public String getItemPathPattern() {
+        return itemPathPattern;
+    }
+
+    public void setItemPathPattern(String itemPathPattern) {
+        this.itemPathPattern = itemPathPattern;
+    }
+
+    public String getBulkWritePathPattern() {
+        return bulkWritePathPattern;
+    }
+
+    public void setBulkWritePathPattern(String bulkWritePathPattern) {
+        this.bulkWritePathPattern = bulkWritePathPattern;
+    }
+
+    public String getInvalidationGroupPrefix() {
+        return invalidationGroupPrefix;
+    }
+
+    public void setInvalidationGroupPrefix(String invalidationGroupPrefix) {
+        this.invalidationGroupPrefix = invalidationGroupPrefix;
+    }
+}
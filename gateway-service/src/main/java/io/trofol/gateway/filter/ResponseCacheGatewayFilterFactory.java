@@ -0,0 +1,247 @@
+package io.trofol.gateway.filter;
+
+import io.trofol.gateway.cache.CachedResponse;
+import io.trofol.gateway.cache.ResponseCache;
+import io.trofol.gateway.config.ResponseCacheProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр маршрута {@code ResponseCache}: отдаёт GET-ответы из {@link ResponseCache}, а при промахе
+ * запоминает тело ответа upstream со статусом 200. Успешная запись через шлюз сразу сбрасывает
+ * затронутые записи, записи других реплик приходят событиями из user-events. Условные заголовки
+ * (If-None-Match, If-Match) передаются upstream как есть; на If-None-Match, совпавший с ETag
+ * закэшированного ответа, шлюз сам отвечает 304. Тело ответа при промахе идёт клиенту сразу,
+ * по мере прихода; копия для кэша снимается, пока не превысит max-body-size, после чего
+ * выбрасывается. Потоковые типы и ответы с Content-Length больше лимита не копируются вовсе.
+ * Фильтр стоит перед {@link NettyWriteResponseFilter}, чтобы тот писал ответ через обёртку.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade",
+            "proxy-authenticate", "content-length", "date", "age", "vary", CACHE_HEADER.toLowerCase(Locale.ROOT));
+    private static final Set<String> ALLOWED_VARY = Set.of(
+            "accept", "accept-encoding", "origin", "access-control-request-method", "access-control-request-headers");
+    private static final List<MediaType> STREAMING_TYPES = List.of(
+            MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    private final ResponseCache cache;
+    private final long maxBodyBytes;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache cache, ResponseCacheProperties properties) {
+        super(Config.class);
+        this.cache = cache;
+        this.maxBodyBytes = properties.getMaxBodySize().toBytes();
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String path = request.getPath().pathWithinApplication().value();
+            HttpMethod method = request.getMethod();
+            if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+                return chain.filter(exchange);
+            }
+            if (!HttpMethod.GET.equals(method)) {
+                return chain.filter(exchange).doOnSuccess(ignored -> invalidateAfterWrite(exchange, path));
+            }
+            if (!isCacheable(request.getHeaders())) {
+                cache.recordBypass();
+                return chain.filter(exchange);
+            }
+            String query = request.getURI().getRawQuery();
+            String variant = variant(request.getHeaders());
+            CachedResponse cached = cache.get(path, query, variant);
+            List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+            if (!ifNoneMatch.isEmpty()) {
+                // условный запрос: 304 по ETag из кэша, иначе запрос уходит upstream без изменений
+                return cached != null && matches(ifNoneMatch, cached.headers().getETag())
+                        ? writeNotModified(exchange.getResponse(), cached)
+                        : chain.filter(exchange);
+            }
+            if (cached != null) {
+                return writeCached(exchange.getResponse(), cached);
+            }
+            long epoch = cache.epoch();
+            ServerHttpResponse decorated = new ServerHttpResponseDecorator(exchange.getResponse()) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    if (!isCacheable(getStatusCode(), getHeaders())) {
+                        return super.writeWith(body);
+                    }
+                    getHeaders().set(CACHE_HEADER, "MISS");
+                    if (getHeaders().getContentLength() > maxBodyBytes) {
+                        return super.writeWith(body);
+                    }
+                    BodyCopy copy = new BodyCopy(maxBodyBytes);
+                    return super.writeWith(Flux.from(body)
+                            .doOnNext(copy::append)
+                            .doOnComplete(() -> {
+                                byte[] bytes = copy.toByteArray();
+                                if (bytes != null) {
+                                    cache.put(path, query, variant, new CachedResponse(
+                                            HttpStatus.OK.value(), snapshot(getHeaders()), bytes, cache.now(), epoch));
+                                }
+                            }));
+                }
+            };
+            return chain.filter(exchange.mutate().response(decorated).build());
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private void invalidateAfterWrite(ServerWebExchange exchange, String path) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null || !status.is2xxSuccessful()) {
+            return;
+        }
+        Long userId = cache.userId(path);
+        if (userId != null) {
+            cache.invalidateUser(userId);
+        } else if (cache.isBulkWrite(path)) {
+            // пакетные операции и импорт могут затронуть любые карточки
+            cache.invalidateAll();
+        } else {
+            cache.invalidateCollections();
+        }
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach(headers::put);
+        headers.set(CACHE_HEADER, "HIT");
+        headers.set(HttpHeaders.AGE, Long.toString(TimeUnit.NANOSECONDS.toSeconds(cache.now() - cached.storedAt())));
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> writeNotModified(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.headers().getETag());
+        cached.headers().getOrEmpty(HttpHeaders.CACHE_CONTROL).forEach(value -> headers.add(HttpHeaders.CACHE_CONTROL, value));
+        headers.set(CACHE_HEADER, "HIT");
+        return response.setComplete();
+    }
+
+    /**
+     * Слабое сравнение по RFC 9110: для If-None-Match префикс W/ не учитывается.
+     */
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        return ifNoneMatch.stream().anyMatch(tag -> "*".equals(tag.trim()) || opaque.equals(stripWeak(tag.trim())));
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static boolean isCacheable(HttpHeaders requestHeaders) {
+        if (requestHeaders.containsKey(HttpHeaders.AUTHORIZATION)
+                || requestHeaders.containsKey(HttpHeaders.IF_MATCH)
+                || requestHeaders.containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+            return false;
+        }
+        String cacheControl = String.join(",", requestHeaders.getOrEmpty(HttpHeaders.CACHE_CONTROL)).toLowerCase(Locale.ROOT);
+        return !cacheControl.contains("no-cache") && !cacheControl.contains("no-store")
+                && !requestHeaders.getOrEmpty(HttpHeaders.PRAGMA).contains("no-cache");
+    }
+
+    private static boolean isCacheable(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        MediaType contentType = headers.getContentType();
+        if (contentType != null && STREAMING_TYPES.stream().anyMatch(contentType::isCompatibleWith)) {
+            return false;
+        }
+        String cacheControl = String.join(",", headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)).toLowerCase(Locale.ROOT);
+        if (cacheControl.contains("no-store") || cacheControl.contains("private") || cacheControl.contains("no-cache")) {
+            return false;
+        }
+        return headers.getVary().stream().allMatch(name -> ALLOWED_VARY.contains(name.toLowerCase(Locale.ROOT)));
+    }
+
+    private static String variant(HttpHeaders headers) {
+        return String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT))
+                + '|' + String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    private static HttpHeaders snapshot(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!SKIPPED_HEADERS.contains(lower) && !lower.startsWith("access-control-")) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * Копия тела, которое идёт клиенту; буферы не потребляются. Сверх лимита копия выбрасывается.
+     */
+    private static final class BodyCopy {
+        private final long limit;
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private BodyCopy(long limit) {
+            this.limit = limit;
+        }
+
+        private void append(DataBuffer buffer) {
+            if (bytes == null) {
+                return;
+            }
+            int count = buffer.readableByteCount();
+            if (bytes.size() + (long) count > limit) {
+                bytes = null;
+                return;
+            }
+            byte[] chunk = new byte[count];
+            int position = buffer.readPosition();
+            buffer.read(chunk);
+            buffer.readPosition(position);
+            bytes.write(chunk, 0, count);
+        }
+
+        /** null, если тело не уместилось в лимит. */
+        private byte[] toByteArray() {
+            return bytes == null ? null : bytes.toByteArray();
+        }
+    }
+
+    public static class Config {
+    }
+}
@@ -0,0 +1,107 @@
+package io.trofol.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Наблюдения шлюза за одним экземпляром сервиса. Задержка — пиковое EWMA с затуханием по времени:
+ * ответ медленнее среднего сразу поднимает оценку до себя, быстрые ответы опускают её постепенно.
+ * Экземпляр, ответивший ошибкой failureThreshold раз подряд, исключается из выбора на время,
+ * которое растёт с каждым повторным исключением.
+ */
+public class InstanceStats {
+
+    private final String instanceId;
+    private final String uri;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double ewmaNanos = -1;
+    private long lastSampleAt;
+    private int consecutiveFailures;
+    private int ejections;
+    private long ejectedUntil;
+    private long requests;
+    private long failures;
+    private long picks;
+
+    InstanceStats(String instanceId, String uri) {
+        this.instanceId = instanceId;
+        this.uri = uri;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Запрос завершён без замера: быстрая отмена или долгий поток о задержке и здоровье
+     * экземпляра ничего не говорят.
+     */
+    public void onUnmeasured() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return true, если экземпляр только что исключён из выбора
+     */
+    synchronized boolean onComplete(long now, long rttNanos, boolean failure, Settings settings) {
+        inFlight.decrementAndGet();
+        requests++;
+        if (ewmaNanos < 0 || rttNanos > ewmaNanos) {
+            ewmaNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSampleAt) / settings.decayNanos());
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+        lastSampleAt = now;
+        if (!failure) {
+            consecutiveFailures = 0;
+            if (now >= ejectedUntil) {
+                ejections = 0;
+            }
+            return false;
+        }
+        failures++;
+        if (++consecutiveFailures < settings.failureThreshold() || now < ejectedUntil) {
+            return false;
+        }
+        consecutiveFailures = 0;
+        ejections++;
+        ejectedUntil = now + Math.min(settings.ejectionNanos() * ejections, settings.maxEjectionNanos());
+        return true;
+    }
+
+    synchronized void onPicked() {
+        picks++;
+    }
+
+    synchronized boolean isEjected(long now) {
+        return now < ejectedUntil;
+    }
+
+    /**
+     * Ожидаемое время ответа с учётом очереди: задержка, умноженная на число запросов в работе плюс один.
+     */
+    synchronized double cost(Settings settings) {
+        double latency = ewmaNanos < 0 ? settings.initialLatencyNanos() : ewmaNanos;
+        return latency * (inFlight.get() + 1);
+    }
+
+    synchronized Snapshot snapshot(long now, Settings settings) {
+        return new Snapshot(instanceId, uri, inFlight.get(),
+                ewmaNanos < 0 ? null : ewmaNanos / 1_000_000, cost(settings) / 1_000_000,
+                requests, failures, picks, consecutiveFailures,
+                now < ejectedUntil ? (ejectedUntil - now) / 1_000_000 : 0);
+    }
+
+    record Settings(long decayNanos, long initialLatencyNanos, int failureThreshold,
+                    long ejectionNanos, long maxEjectionNanos) {
+    }
+
+    public record Snapshot(String instanceId, String uri, int inFlight, Double latencyMillis, double costMillis,
+                           long requests, long failures, long picks, int consecutiveFailures,
+                           long ejectedForMillis) {
+    }
+}
@@ -0,0 +1,79 @@
+package io.trofol.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Балансировщик «из двух случайных»: из экземпляров, не исключённых за ошибки, берёт два случайных
+ * и отдаёт запрос тому, у кого меньше ожидаемое время ответа ({@link InstanceStats}). Медленная
+ * или зависшая в GC реплика быстро набирает очередь и задержку и перестаёт получать свою долю
+ * трафика, но не выпадает совсем и возвращается, когда оправится. Если исключены все экземпляры,
+ * выбор идёт среди всех.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final LoadBalancerStats stats;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    String serviceId, LoadBalancerStats stats) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        stats.retain(serviceId, instances);
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        List<InstanceStats> candidateStats = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            InstanceStats instanceStats = stats.stats(serviceId, instance);
+            if (!stats.isEjected(instanceStats)) {
+                candidates.add(instance);
+                candidateStats.add(instanceStats);
+            }
+        }
+        int ejected = instances.size() - candidates.size();
+        if (candidates.isEmpty()) {
+            candidates.addAll(instances);
+            instances.forEach(instance -> candidateStats.add(stats.stats(serviceId, instance)));
+        }
+
+        if (candidates.size() == 1) {
+            stats.recordDecision(serviceId, candidateStats.get(0), null, ejected);
+            return new DefaultResponse(candidates.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        int chosen = stats.cost(candidateStats.get(second)) < stats.cost(candidateStats.get(first)) ? second : first;
+        int other = chosen == first ? second : first;
+        stats.recordDecision(serviceId, candidateStats.get(chosen), candidateStats.get(other), ejected);
+        return new DefaultResponse(candidates.get(chosen));
+    }
+}
@@ -0,0 +1,33 @@
+package io.trofol.gateway.loadbalancer;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/loadbalancer}: задержка, запросы в работе, ошибки и исключения по экземплярам
+ * и последние решения балансировщика по каждому сервису.
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final LoadBalancerStats stats;
+
+    public LoadBalancerEndpoint(LoadBalancerStats stats) {
+        this.stats = stats;
+    }
+
+    @ReadOperation
+    public Map<String, LoadBalancerStats.ServiceSnapshot> services() {
+        return stats.snapshot();
+    }
+
+    @ReadOperation
+    public LoadBalancerStats.ServiceSnapshot service(@Selector String serviceId) {
+        return stats.snapshot().get(serviceId);
+    }
+}
@@ -0,0 +1,153 @@
+package io.trofol.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.trofol.gateway.config.LoadBalancerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Статистика экземпляров всех сервисов за lb://-маршрутами и последние решения балансировщика.
+ * Общая для дочерних контекстов LoadBalancer, поэтому живёт в контексте шлюза.
+ */
+@Component
+public class LoadBalancerStats {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadBalancerStats.class);
+
+    private final Map<String, Service> services = new ConcurrentHashMap<>();
+    private final InstanceStats.Settings settings;
+    private final int recentDecisions;
+    private final long slowCancelNanos;
+    private final MeterRegistry meterRegistry;
+    private final Ticker ticker;
+
+    @Autowired
+    public LoadBalancerStats(LoadBalancerProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    LoadBalancerStats(LoadBalancerProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.settings = new InstanceStats.Settings(properties.getDecayTime().toNanos(),
+                properties.getInitialLatency().toNanos(), properties.getFailureThreshold(),
+                properties.getEjectionTime().toNanos(), properties.getMaxEjectionTime().toNanos());
+        this.recentDecisions = properties.getRecentDecisions();
+        this.slowCancelNanos = properties.getSlowCancelThreshold().toNanos();
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+    }
+
+    public long now() {
+        return ticker.read();
+    }
+
+    public InstanceStats stats(String serviceId, ServiceInstance instance) {
+        return services.computeIfAbsent(serviceId, id -> new Service())
+                .instances.computeIfAbsent(instanceId(instance),
+                        id -> new InstanceStats(id, String.valueOf(instance.getUri())));
+    }
+
+    public void onComplete(String serviceId, InstanceStats stats, long rttNanos, boolean failure) {
+        if (stats.onComplete(now(), rttNanos, failure, settings)) {
+            meterRegistry.counter("gateway.loadbalancer.ejections", "service", serviceId).increment();
+            log.warn("Экземпляр {} сервиса {} исключён из балансировки после серии ошибок",
+                    stats.getInstanceId(), serviceId);
+        }
+    }
+
+    /**
+     * Запрос отменён. Быстрая отмена — клиент ушёл — ни о чём не говорит. Отмена после
+     * slowCancelThreshold — это таймаут над зависшим экземпляром: она считается ошибкой
+     * с задержкой, равной времени до отмены, иначе такой экземпляр не исключался бы никогда.
+     */
+    public void onCancel(String serviceId, InstanceStats stats, long elapsedNanos) {
+        if (elapsedNanos >= slowCancelNanos) {
+            onComplete(serviceId, stats, elapsedNanos, true);
+        } else {
+            stats.onUnmeasured();
+        }
+    }
+
+    boolean isEjected(InstanceStats stats) {
+        return stats.isEjected(now());
+    }
+
+    double cost(InstanceStats stats) {
+        return stats.cost(settings);
+    }
+
+    void recordDecision(String serviceId, InstanceStats chosen, InstanceStats other, int ejected) {
+        chosen.onPicked();
+        Service service = services.get(serviceId);
+        Decision decision = new Decision(System.currentTimeMillis(), chosen.getInstanceId(),
+                cost(chosen) / 1_000_000, other == null ? null : other.getInstanceId(),
+                other == null ? null : cost(other) / 1_000_000, ejected);
+        synchronized (service.decisions) {
+            if (service.decisions.size() >= recentDecisions) {
+                service.decisions.removeFirst();
+            }
+            service.decisions.addLast(decision);
+        }
+    }
+
+    /**
+     * Забывает экземпляры, пропавшие из списка discovery; запросы к ним в работе
+     * держат свою статистику сами и завершатся без неё.
+     */
+    void retain(String serviceId, Collection<ServiceInstance> instances) {
+        Service service = services.get(serviceId);
+        if (service != null) {
+            Set<String> ids = instances.stream().map(LoadBalancerStats::instanceId).collect(Collectors.toSet());
+            service.instances.keySet().retainAll(ids);
+        }
+    }
+
+    public Map<String, ServiceSnapshot> snapshot() {
+        long now = now();
+        Map<String, ServiceSnapshot> result = new TreeMap<>();
+        services.forEach((serviceId, service) -> {
+            List<InstanceStats.Snapshot> instances = service.instances.values().stream()
+                    .map(stats -> stats.snapshot(now, settings))
+                    .sorted(Comparator.comparing(InstanceStats.Snapshot::instanceId))
+                    .toList();
+            List<Decision> decisions;
+            synchronized (service.decisions) {
+                decisions = new ArrayList<>(service.decisions);
+            }
+            result.put(serviceId, new ServiceSnapshot(instances, decisions));
+        });
+        return result;
+    }
+
+    static String instanceId(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static class Service {
+        final Map<String, InstanceStats> instances = new ConcurrentHashMap<>();
+        final Deque<Decision> decisions = new ArrayDeque<>();
+    }
+
+    public record Decision(long timestamp, String chosen, double chosenCostMillis,
+                           String other, Double otherCostMillis, int ejected) {
+    }
+
+    public record ServiceSnapshot(List<InstanceStats.Snapshot> instances, List<Decision> recentDecisions) {
+    }
+}
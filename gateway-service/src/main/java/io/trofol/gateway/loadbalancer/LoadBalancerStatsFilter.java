@@ -0,0 +1,67 @@
+package io.trofol.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Снимает задержку и исход каждого запроса к выбранному экземпляру для {@link LoadBalancerStats}.
+ * Идёт сразу за выбором экземпляра, то есть внутри CircuitBreaker; отмену запроса (таймаут
+ * CircuitBreaker, обрыв клиента) учитывает отдельно — LoadBalancerLifecycle о ней не узнаёт.
+ * Запросы маршрутов с метаданными {@code long-running: true} (выгрузка, импорт) длятся минутами:
+ * они учитываются только как запросы в работе, иначе исказили бы задержку экземпляра.
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+
+    static final String LONG_RUNNING_METADATA = "long-running";
+
+    private final LoadBalancerStats stats;
+
+    public LoadBalancerStatsFilter(LoadBalancerStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+        // Eureka отдаёт serviceId экземпляра в верхнем регистре, балансировщик знает сервис по хосту lb://
+        Route route = exchange.getRequiredAttribute(GATEWAY_ROUTE_ATTR);
+        String serviceId = route.getUri().getHost();
+        InstanceStats instanceStats = stats.stats(serviceId, response.getServer());
+        instanceStats.onStart();
+        if (Boolean.parseBoolean(String.valueOf(route.getMetadata().get(LONG_RUNNING_METADATA)))) {
+            return chain.filter(exchange).doFinally(signal -> instanceStats.onUnmeasured());
+        }
+        long start = stats.now();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                stats.onCancel(serviceId, instanceStats, stats.now() - start);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failure = signal == SignalType.ON_ERROR || status != null && status.is5xxServerError();
+            stats.onComplete(serviceId, instanceStats, stats.now() - start, failure);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
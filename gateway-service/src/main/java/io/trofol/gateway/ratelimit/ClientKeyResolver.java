@@ -0,0 +1,58 @@
+package io.trofol.gateway.ratelimit;
+
+import io.netty.handler.ipfilter.IpFilterRuleType;
+import io.netty.handler.ipfilter.IpSubnetFilterRule;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Клиент для лимитов — адрес соединения. X-Client-Id учитывается, только если соединение пришло
+ * от доверенного прокси из trustedProxies (подсети в нотации CIDR), который сам проверил клиента:
+ * напрямую заголовок, как и X-Forwarded-For, подделывается, и новый id на каждый запрос давал бы
+ * новую корзину.
+ */
+public class ClientKeyResolver implements KeyResolver {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final List<IpSubnetFilterRule> trustedProxies;
+
+    public ClientKeyResolver() {
+        this(List.of());
+    }
+
+    public ClientKeyResolver(Collection<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .filter(subnet -> !subnet.isBlank())
+                .map(ClientKeyResolver::subnet)
+                .toList();
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        if (remote == null) {
+            return Mono.empty();
+        }
+        String clientId = exchange.getRequest().getHeaders().getFirst(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.isBlank() && isTrusted(remote)) {
+            return Mono.just("id:" + clientId.trim());
+        }
+        return Mono.just("ip:" + (remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString()));
+    }
+
+    private boolean isTrusted(InetSocketAddress remote) {
+        return remote.getAddress() != null && trustedProxies.stream().anyMatch(rule -> rule.matches(remote));
+    }
+
+    private static IpSubnetFilterRule subnet(String cidr) {
+        String[] parts = cidr.trim().split("/", 2);
+        int prefix = parts.length == 2 ? Integer.parseInt(parts[1]) : (parts[0].contains(":") ? 128 : 32);
+        return new IpSubnetFilterRule(parts[0], prefix, IpFilterRuleType.ACCEPT);
+    }
+}
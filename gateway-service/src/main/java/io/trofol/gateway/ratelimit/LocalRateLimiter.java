@@ -0,0 +1,119 @@
+package io.trofol.gateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ограничитель для фильтра RequestRateLimiter: корзина на пару «маршрут + клиент» и, если задана,
+ * общая корзина маршрута. Параметры задаются в аргументах фильтра с префиксом
+ * {@code local-rate-limiter.}, корзины хранит {@link TokenBucketStore}.
+ */
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final TokenBucketStore store;
+    private final MeterRegistry meterRegistry;
+    private final Config defaultConfig = new Config();
+
+    public LocalRateLimiter(TokenBucketStore store, ConfigurationService configurationService, MeterRegistry meterRegistry) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        TokenBucketStore.Bandwidth client = new TokenBucketStore.Bandwidth(config.getReplenishRate(), config.getBurstCapacity());
+        return store.tryConsume(routeId + ':' + id, client, config.getRequestedTokens())
+                .flatMap(consumption -> !consumption.allowed() || config.getRouteReplenishRate() <= 0
+                        ? Mono.just(consumption)
+                        : store.tryConsume(routeId, new TokenBucketStore.Bandwidth(
+                                config.getRouteReplenishRate(), config.getRouteBurstCapacity()), config.getRequestedTokens())
+                        .map(route -> route.allowed() ? consumption : route))
+                .map(consumption -> {
+                    meterRegistry.counter("gateway.ratelimit.requests", "route", routeId,
+                            "result", consumption.allowed() ? "allowed" : "rejected").increment();
+                    return new Response(consumption.allowed(), headers(config, consumption));
+                });
+    }
+
+    private static Map<String, String> headers(Config config, TokenBucketStore.Consumption consumption) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(REMAINING_HEADER, Long.toString(consumption.remaining()));
+        headers.put(REPLENISH_RATE_HEADER, Double.toString(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Long.toString(config.getBurstCapacity()));
+        if (!consumption.allowed()) {
+            long seconds = (consumption.retryAfter().toMillis() + 999) / 1000;
+            headers.put(RETRY_AFTER_HEADER, Long.toString(Math.max(1, seconds)));
+        }
+        return headers;
+    }
+
+    /**
+     * replenishRate и burstCapacity — корзина одного клиента на маршруте; routeReplenishRate
+     * и routeBurstCapacity — общая корзина маршрута (0 — без общего лимита).
+     */
+    public static class Config {
+        private double replenishRate = 50;
+        private long burstCapacity = 100;
+        private int requestedTokens = 1;
+        private double routeReplenishRate;
+        private long routeBurstCapacity;
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public long getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(long burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        public double getRouteReplenishRate() {
+            return routeReplenishRate;
+        }
+
+        public Config setRouteReplenishRate(double routeReplenishRate) {
+            this.routeReplenishRate = routeReplenishRate;
+            return this;
+        }
+
+        public long getRouteBurstCapacity() {
+            return routeBurstCapacity;
+        }
+
+        public Config setRouteBurstCapacity(long routeBurstCapacity) {
+            this.routeBurstCapacity = routeBurstCapacity;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.trofol.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Корзины в памяти шлюза. Корзина, к которой не обращались дольше idleTimeout, удаляется:
+ * при idleTimeout не меньше burstCapacity / replenishRate она к этому моменту всё равно полна,
+ * так что удаление не меняет лимит, а число ключей клиентов остаётся ограниченным.
+ */
+public class LocalTokenBucketStore implements TokenBucketStore {
+
+    private final Cache<String, Bucket> buckets;
+    private final Ticker ticker;
+
+    public LocalTokenBucketStore(long maximumBuckets, Duration idleTimeout) {
+        this(maximumBuckets, idleTimeout, Ticker.systemTicker());
+    }
+
+    LocalTokenBucketStore(long maximumBuckets, Duration idleTimeout, Ticker ticker) {
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Mono<Consumption> tryConsume(String key, Bandwidth bandwidth, int tokens) {
+        long now = ticker.read();
+        Bucket bucket = buckets.get(key, k -> new Bucket(bandwidth.burstCapacity(), now));
+        return Mono.just(bucket.tryConsume(bandwidth, tokens, now));
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private synchronized Consumption tryConsume(Bandwidth bandwidth, int requested, long now) {
+            double perNano = bandwidth.replenishRate() / 1_000_000_000d;
+            if (now > refilledAt) {
+                tokens = Math.min(bandwidth.burstCapacity(), tokens + (now - refilledAt) * perNano);
+                refilledAt = now;
+            }
+            if (tokens >= requested) {
+                tokens -= requested;
+                return new Consumption(true, (long) tokens, Duration.ZERO);
+            }
+            long waitNanos = perNano > 0 ? (long) Math.ceil((requested - tokens) / perNano) : Long.MAX_VALUE;
+            return new Consumption(false, (long) tokens, Duration.ofNanos(waitNanos));
+        }
+    }
+}
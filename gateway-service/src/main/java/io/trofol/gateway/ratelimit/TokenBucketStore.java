@@ -0,0 +1,29 @@
+package io.trofol.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Хранилище корзин жетонов. Локальная реализация держит корзины в памяти реплики шлюза;
+ * общая (например, Redis) подключается бином этого типа, и лимиты станут общими для всех реплик.
+ */
+public interface TokenBucketStore {
+
+    /**
+     * Атомарно списывает tokens жетонов из корзины key, если их хватает.
+     */
+    Mono<Consumption> tryConsume(String key, Bandwidth bandwidth, int tokens);
+
+    /**
+     * Пополнение replenishRate жетонов в секунду, не больше burstCapacity в корзине.
+     */
+    record Bandwidth(double replenishRate, long burstCapacity) {
+    }
+
+    /**
+     * Результат списания: remaining — жетоны после него, retryAfter — когда хватит на повтор.
+     */
+    record Consumption(boolean allowed, long remaining, Duration retryAfter) {
+    }
+}
@@ -0,0 +1,126 @@
+package io.trofol.gateway.cache;
+
+import io.trofol.gateway.config.ResponseCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final ResponseCache cache = new ResponseCache(properties(), nanos::get);
+
+    @Test
+    void get_returnsStoredVariantOnly() {
+        cache.put("/api/users/1", null, "application/json|", response("one", cache.epoch()));
+
+        assertThat(cache.get("/api/users/1", null, "application/json|").body())
+                .isEqualTo("one".getBytes(StandardCharsets.UTF_8));
+        assertThat(cache.get("/api/users/1", null, "application/xml|")).isNull();
+        assertThat(cache.get("/api/users/2", null, "application/json|")).isNull();
+    }
+
+    @Test
+    void get_expiresEntriesAfterTtl() {
+        cache.put("/api/users", "page=0", "", response("page", cache.epoch()));
+
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertThat(cache.get("/api/users", "page=0", "")).isNull();
+    }
+
+    @Test
+    void invalidateUser_dropsItemAndCollectionsButKeepsOtherItems() {
+        cache.put("/api/users/1", null, "", response("one", cache.epoch()));
+        cache.put("/api/users/2", null, "", response("two", cache.epoch()));
+        cache.put("/api/users/search", "name=a", "", response("search", cache.epoch()));
+
+        cache.invalidateUser(1);
+
+        assertThat(cache.get("/api/users/1", null, "")).isNull();
+        assertThat(cache.get("/api/users/search", "name=a", "")).isNull();
+        assertThat(cache.get("/api/users/2", null, "")).isNotNull();
+    }
+
+    @Test
+    void put_skipsResponsesReadBeforeConcurrentInvalidation() {
+        long epoch = cache.epoch();
+        cache.invalidateUser(7);
+
+        cache.put("/api/users/7", null, "", response("stale", epoch));
+        cache.put("/api/users", null, "", response("stale list", epoch));
+
+        assertThat(cache.get("/api/users/7", null, "")).isNull();
+        assertThat(cache.get("/api/users", null, "")).isNull();
+    }
+
+    @Test
+    void put_keepsItemsOfOtherUsersReadDuringInvalidation() {
+        long epoch = cache.epoch();
+        cache.invalidateUser(7);
+
+        cache.put("/api/users/1", null, "", response("one", epoch));
+
+        assertThat(cache.get("/api/users/1", null, "")).isNotNull();
+    }
+
+    @Test
+    void put_skipsItemsReadBeforeInvalidateAll() {
+        long epoch = cache.epoch();
+        cache.invalidateAll();
+
+        cache.put("/api/users/1", null, "", response("stale", epoch));
+
+        assertThat(cache.get("/api/users/1", null, "")).isNull();
+    }
+
+    @Test
+    void put_skipsStaleItemEvenAfterItsInvalidationMarkIsEvicted() {
+        ResponseCacheProperties small = properties();
+        small.setMaximumSize(1);
+        ResponseCache cache = new ResponseCache(small, nanos::get);
+        long epoch = cache.epoch();
+        cache.invalidateUser(7);
+        for (long userId = 100; userId < 110; userId++) {
+            cache.invalidateUser(userId);
+        }
+
+        cache.put("/api/users/7", null, "", response("stale", epoch));
+
+        assertThat(cache.get("/api/users/7", null, "")).isNull();
+    }
+
+    @Test
+    void put_capsVariantsPerKey() {
+        for (int i = 0; i < ResponseCache.MAX_VARIANTS + 2; i++) {
+            cache.put("/api/users/1", null, "v" + i, response("body", cache.epoch()));
+        }
+
+        assertThat(cache.get("/api/users/1", null, "v0")).isNotNull();
+        assertThat(cache.get("/api/users/1", null, "v" + ResponseCache.MAX_VARIANTS)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void userId_matchesOnlyItemPaths() {
+        assertThat(cache.userId("/api/users/42")).isEqualTo(42L);
+        assertThat(cache.userId("/api/users/search")).isNull();
+        assertThat(cache.userId("/api/users")).isNull();
+    }
+
+    private CachedResponse response(String body, long epoch) {
+        return new CachedResponse(200, new HttpHeaders(), body.getBytes(StandardCharsets.UTF_8), nanos.get(), epoch);
+    }
+
+    private static ResponseCacheProperties properties() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setTtl(Duration.ofSeconds(30));
+        properties.setMaximumSize(100);
+        return properties;
+    }
+}
@@ -0,0 +1,93 @@
+package io.trofol.gateway.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+            new AdaptiveConcurrencyLimit.Settings(4, 2, 8, 0.5, 2.0, 0.05));
+
+    @Test
+    void tryAcquire_rejectsAboveLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.onIgnored();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void fastResponsesUnderLoad_growLimitUpToMax() {
+        for (int i = 0; i < 20; i++) {
+            fillAndRelease(FAST);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void slowResponsesAndErrors_shrinkLimitDownToMin() {
+        limit.tryAcquire();
+        limit.onSuccess(FAST);
+
+        limit.tryAcquire();
+        limit.onSuccess(SLOW);
+        assertThat(limit.getLimit()).isEqualTo(2);
+
+        limit.tryAcquire();
+        limit.onDropped();
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void filter_shedsRequestsAboveLimitWith503() {
+        AdaptiveConcurrencyGatewayFilterFactory.Config config = new AdaptiveConcurrencyGatewayFilterFactory.Config()
+                .setInitialLimit(1).setMinLimit(1).setMaxLimit(1);
+        config.setRouteId("users");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GatewayFilter filter = new AdaptiveConcurrencyGatewayFilterFactory(registry).apply(config);
+        Sinks.Empty<Void> upstream = Sinks.empty();
+
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1").build());
+        filter.filter(first, exchange -> upstream.asMono()).subscribe();
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1").build());
+        filter.filter(second, exchange -> Mono.empty()).block();
+
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(second.getResponse().getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(registry.get("gateway.concurrency.inflight").tag("route", "users").gauge().value()).isEqualTo(1);
+
+        upstream.tryEmitEmpty();
+        MockServerWebExchange third = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1").build());
+        filter.filter(third, exchange -> Mono.empty()).block();
+
+        assertThat(third.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(registry.get("gateway.concurrency.rejected").tag("route", "users").counter().count()).isEqualTo(1);
+    }
+
+    private void fillAndRelease(long rtt) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.onSuccess(rtt);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package io.trofol.gateway.filter;
+
+import io.trofol.gateway.cache.ResponseCache;
+import io.trofol.gateway.config.ResponseCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final ResponseCache cache = new ResponseCache(properties);
+    private final GatewayFilter filter = new ResponseCacheGatewayFilterFactory(cache, properties)
+            .apply(new ResponseCacheGatewayFilterFactory.Config());
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void repeatedGet_isServedFromCache() {
+        MockServerHttpResponse first = run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "{\"id\":1}"));
+        MockServerHttpResponse second = run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "{\"id\":2}"));
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(first.getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(second.getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(second.getBodyAsString().block()).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void errorResponses_areNotCached() {
+        run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.NOT_FOUND, "{}"));
+        run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.NOT_FOUND, "{}"));
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void successfulWrite_purgesItemAndCollections() {
+        run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "old"));
+        run(MockServerHttpRequest.get("/api/users").queryParam("page", "0").build(), upstream(HttpStatus.OK, "[old]"));
+
+        run(MockServerHttpRequest.put("/api/users/1").build(), upstream(HttpStatus.OK, "new"));
+        MockServerHttpResponse item = run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "new"));
+        MockServerHttpResponse list = run(MockServerHttpRequest.get("/api/users").queryParam("page", "0").build(), upstream(HttpStatus.OK, "[new]"));
+
+        assertThat(item.getBodyAsString().block()).isEqualTo("new");
+        assertThat(list.getBodyAsString().block()).isEqualTo("[new]");
+        assertThat(upstreamCalls).hasValue(5);
+    }
+
+    @Test
+    void create_purgesCollectionsButKeepsCachedItems() {
+        run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "one"));
+        run(MockServerHttpRequest.get("/api/users").build(), upstream(HttpStatus.OK, "[one]"));
+
+        run(MockServerHttpRequest.post("/api/users").build(), upstream(HttpStatus.CREATED, "two"));
+        MockServerHttpResponse item = run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "changed"));
+        MockServerHttpResponse list = run(MockServerHttpRequest.get("/api/users").build(), upstream(HttpStatus.OK, "[one,two]"));
+
+        assertThat(item.getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(item.getBodyAsString().block()).isEqualTo("one");
+        assertThat(list.getBodyAsString().block()).isEqualTo("[one,two]");
+        assertThat(upstreamCalls).hasValue(4);
+    }
+
+    @Test
+    void batchWrite_purgesCachedItems() {
+        run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "one"));
+
+        run(MockServerHttpRequest.post("/api/users/batch").build(), upstream(HttpStatus.OK, "[]"));
+        MockServerHttpResponse item = run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "changed"));
+
+        assertThat(item.getBodyAsString().block()).isEqualTo("changed");
+        assertThat(upstreamCalls).hasValue(3);
+    }
+
+    @Test
+    void ifNoneMatch_matchingCachedETag_answersNotModifiedWithoutUpstream() {
+        GatewayFilterChain tagged = exchange -> {
+            exchange.getResponse().getHeaders().setETag("\"3\"");
+            return upstream(HttpStatus.OK, "{\"id\":1}").filter(exchange);
+        };
+        run(MockServerHttpRequest.get("/api/users/1").build(), tagged);
+
+        MockServerHttpResponse notModified = run(MockServerHttpRequest.get("/api/users/1")
+                .ifNoneMatch("\"3\"").build(), tagged);
+        MockServerHttpResponse changed = run(MockServerHttpRequest.get("/api/users/1")
+                .ifNoneMatch("\"2\"").build(), tagged);
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo("\"3\"");
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void noCacheRequests_bypassCache() {
+        run(MockServerHttpRequest.get("/api/users/1").build(), upstream(HttpStatus.OK, "one"));
+        MockServerHttpResponse response = run(MockServerHttpRequest.get("/api/users/1")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache").build(), upstream(HttpStatus.OK, "fresh"));
+
+        assertThat(response.getBodyAsString().block()).isEqualTo("fresh");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void streamingResponses_areNotCached() {
+        GatewayFilterChain stream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                    .wrap("{}\n".getBytes(StandardCharsets.UTF_8))));
+        };
+
+        run(MockServerHttpRequest.get("/api/users/stream").build(), stream);
+        run(MockServerHttpRequest.get("/api/users/stream").build(), stream);
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void bodyInChunks_isPassedThroughAndCachedWhole() {
+        run(MockServerHttpRequest.get("/api/users").build(), chunked("[{\"id\":1},", "{\"id\":2}]"));
+        MockServerHttpResponse cached = run(MockServerHttpRequest.get("/api/users").build(), chunked("changed"));
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(cached.getBodyAsString().block()).isEqualTo("[{\"id\":1},{\"id\":2}]");
+    }
+
+    @Test
+    void bodyOverMaxSize_isPassedThroughAndNotCached() {
+        ResponseCacheProperties small = new ResponseCacheProperties();
+        small.setMaxBodySize(DataSize.ofBytes(8));
+        GatewayFilter limited = new ResponseCacheGatewayFilterFactory(new ResponseCache(small), small)
+                .apply(new ResponseCacheGatewayFilterFactory.Config());
+
+        MockServerHttpResponse first = run(limited, MockServerHttpRequest.get("/api/users").build(), chunked("[1,2,3,", "4,5,6]"));
+        run(limited, MockServerHttpRequest.get("/api/users").build(), chunked("[1,2,3,", "4,5,6]"));
+
+        assertThat(first.getBodyAsString().block()).isEqualTo("[1,2,3,4,5,6]");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void declaredContentLengthOverMaxSize_isNotCopied() {
+        ResponseCacheProperties small = new ResponseCacheProperties();
+        small.setMaxBodySize(DataSize.ofBytes(8));
+        GatewayFilter limited = new ResponseCacheGatewayFilterFactory(new ResponseCache(small), small)
+                .apply(new ResponseCacheGatewayFilterFactory.Config());
+        GatewayFilterChain sized = exchange -> {
+            exchange.getResponse().getHeaders().setContentLength(13);
+            return chunked("[1,2,3,", "4,5,6]").filter(exchange);
+        };
+
+        run(limited, MockServerHttpRequest.get("/api/users").build(), sized);
+        run(limited, MockServerHttpRequest.get("/api/users").build(), sized);
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    private MockServerHttpResponse run(MockServerHttpRequest request, GatewayFilterChain chain) {
+        return run(filter, request, chain);
+    }
+
+    private static MockServerHttpResponse run(GatewayFilter filter, MockServerHttpRequest request, GatewayFilterChain chain) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse();
+    }
+
+    private GatewayFilterChain chunked(String... parts) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return exchange.getResponse().writeWith(Flux.fromArray(parts)
+                    .map(part -> exchange.getResponse().bufferFactory().wrap(part.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private GatewayFilterChain upstream(HttpStatus status, String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(status);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                    .wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+}
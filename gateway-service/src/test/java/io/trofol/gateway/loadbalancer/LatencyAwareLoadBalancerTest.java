@@ -0,0 +1,140 @@
+package io.trofol.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.trofol.gateway.config.LoadBalancerProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyAwareLoadBalancerTest {
+
+    private static final String SERVICE = "user-service";
+    private static final long MS = 1_000_000;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LoadBalancerStats stats = new LoadBalancerStats(new LoadBalancerProperties(), registry, nanos::get);
+    private final LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(null, SERVICE, stats);
+    private final ServiceInstance fast = instance("fast", 8081);
+    private final ServiceInstance slow = instance("slow", 8082);
+    private final List<ServiceInstance> instances = List.of(fast, slow);
+
+    @Test
+    void choose_prefersInstanceWithLowerLatency() {
+        complete(fast, 10 * MS, false);
+        complete(slow, 200 * MS, false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(chosen()).isEqualTo("fast");
+        }
+        LoadBalancerStats.ServiceSnapshot snapshot = stats.snapshot().get(SERVICE);
+        assertThat(snapshot.recentDecisions()).hasSize(10)
+                .allSatisfy(decision -> assertThat(decision.other()).isEqualTo("slow"));
+        assertThat(snapshot.instances()).extracting(InstanceStats.Snapshot::picks).containsExactly(10L, 0L);
+    }
+
+    @Test
+    void choose_accountsForRequestsInFlight() {
+        complete(fast, 10 * MS, false);
+        complete(slow, 30 * MS, false);
+        InstanceStats fastStats = stats.stats(SERVICE, fast);
+        for (int i = 0; i < 3; i++) {
+            fastStats.onStart();
+        }
+
+        assertThat(chosen()).isEqualTo("slow");
+    }
+
+    @Test
+    void failingInstance_isEjectedAndReturnsAfterEjectionTime() {
+        complete(fast, 50 * MS, false);
+        for (int i = 0; i < 5; i++) {
+            complete(slow, MS, true);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(chosen()).isEqualTo("fast");
+        }
+        assertThat(stats.snapshot().get(SERVICE).recentDecisions()).allSatisfy(decision ->
+                assertThat(decision.ejected()).isEqualTo(1));
+        assertThat(registry.counter("gateway.loadbalancer.ejections", "service", SERVICE).count()).isEqualTo(1);
+
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(chosen()).isEqualTo("slow");
+    }
+
+    @Test
+    void timedOutInstance_raisesLatencyAndIsEjected() {
+        complete(fast, 50 * MS, false);
+        complete(slow, 10 * MS, false);
+        InstanceStats slowStats = stats.stats(SERVICE, slow);
+
+        // таймаут CircuitBreaker отменяет запрос через 3 с
+        slowStats.onStart();
+        stats.onCancel(SERVICE, slowStats, 3_000 * MS);
+        assertThat(chosen()).isEqualTo("fast");
+        for (int i = 0; i < 4; i++) {
+            slowStats.onStart();
+            stats.onCancel(SERVICE, slowStats, 3_000 * MS);
+        }
+
+        InstanceStats.Snapshot snapshot = stats.snapshot().get(SERVICE).instances().get(1);
+        assertThat(snapshot.instanceId()).isEqualTo("slow");
+        assertThat(snapshot.inFlight()).isZero();
+        assertThat(snapshot.latencyMillis()).isGreaterThanOrEqualTo(3_000.0);
+        assertThat(snapshot.failures()).isEqualTo(5);
+        assertThat(registry.counter("gateway.loadbalancer.ejections", "service", SERVICE).count()).isEqualTo(1);
+    }
+
+    @Test
+    void quickCancel_isNotCountedAsFailure() {
+        InstanceStats slowStats = stats.stats(SERVICE, slow);
+        for (int i = 0; i < 5; i++) {
+            slowStats.onStart();
+            stats.onCancel(SERVICE, slowStats, 5 * MS);
+        }
+
+        assertThat(stats.snapshot().get(SERVICE).instances().get(0).inFlight()).isZero();
+        assertThat(registry.find("gateway.loadbalancer.ejections").counter()).isNull();
+    }
+
+    @Test
+    void allInstancesEjected_stillChoosesAmongAll() {
+        for (int i = 0; i < 5; i++) {
+            complete(fast, MS, true);
+            complete(slow, MS, true);
+        }
+
+        assertThat(balancer.choose(instances).hasServer()).isTrue();
+    }
+
+    @Test
+    void choose_forgetsInstancesGoneFromDiscovery() {
+        complete(slow, MS, false);
+
+        balancer.choose(List.of(fast));
+
+        assertThat(stats.snapshot().get(SERVICE).instances())
+                .extracting(InstanceStats.Snapshot::instanceId).containsExactly("fast");
+    }
+
+    private String chosen() {
+        return LoadBalancerStats.instanceId(balancer.choose(instances).getServer());
+    }
+
+    private void complete(ServiceInstance instance, long rttNanos, boolean failure) {
+        InstanceStats instanceStats = stats.stats(SERVICE, instance);
+        instanceStats.onStart();
+        stats.onComplete(SERVICE, instanceStats, rttNanos, failure);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, SERVICE, "localhost", port, false);
+    }
+}
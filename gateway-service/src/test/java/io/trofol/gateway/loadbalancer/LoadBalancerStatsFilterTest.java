@@ -0,0 +1,69 @@
+package io.trofol.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.trofol.gateway.config.LoadBalancerProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class LoadBalancerStatsFilterTest {
+
+    private static final String SERVICE = "user-service";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final LoadBalancerStats stats =
+            new LoadBalancerStats(new LoadBalancerProperties(), new SimpleMeterRegistry(), nanos::get);
+    private final LoadBalancerStatsFilter filter = new LoadBalancerStatsFilter(stats);
+    private final ServiceInstance instance = new DefaultServiceInstance("a", SERVICE, "localhost", 8081, false);
+
+    @Test
+    void regularRoute_recordsLatency() {
+        filter.filter(exchange(Map.of()), this::respondAfterFiveMinutes).block();
+
+        InstanceStats.Snapshot snapshot = snapshot();
+        assertThat(snapshot.requests()).isEqualTo(1);
+        assertThat(snapshot.latencyMillis()).isGreaterThanOrEqualTo(Duration.ofMinutes(5).toMillis());
+    }
+
+    @Test
+    void longRunningRoute_isCountedOnlyInFlight() {
+        filter.filter(exchange(Map.of(LoadBalancerStatsFilter.LONG_RUNNING_METADATA, "true")),
+                this::respondAfterFiveMinutes).block();
+
+        InstanceStats.Snapshot snapshot = snapshot();
+        assertThat(snapshot.requests()).isZero();
+        assertThat(snapshot.failures()).isZero();
+        assertThat(snapshot.inFlight()).isZero();
+    }
+
+    private Mono<Void> respondAfterFiveMinutes(ServerWebExchange exchange) {
+        return Mono.fromRunnable(() -> nanos.addAndGet(Duration.ofMinutes(5).toNanos()));
+    }
+
+    private MockServerWebExchange exchange(Map<String, Object> metadata) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/stream"));
+        Route route = Route.async().id("user-service").uri("lb://" + SERVICE).predicate(e -> true)
+                .metadata(metadata).build();
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+        return exchange;
+    }
+
+    private InstanceStats.Snapshot snapshot() {
+        return stats.snapshot().get(SERVICE).instances().get(0);
+    }
+}
@@ -0,0 +1,57 @@
+package io.trofol.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientKeyResolverTest {
+
+    private final ClientKeyResolver resolver = new ClientKeyResolver(List.of("10.0.0.0/8"));
+
+    @Test
+    void rotatingClientIdFromUntrustedAddress_doesNotBypassLimit() {
+        LocalRateLimiter limiter = new LocalRateLimiter(
+                new LocalTokenBucketStore(1000, Duration.ofMinutes(10), new AtomicLong()::get), null, new SimpleMeterRegistry());
+        limiter.getConfig().put("users", new LocalRateLimiter.Config().setReplenishRate(1).setBurstCapacity(2));
+
+        int allowed = 0;
+        for (int i = 0; i < 5; i++) {
+            String key = resolve("203.0.113.7", "client-" + i);
+            if (limiter.isAllowed("users", key).block().isAllowed()) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(2);
+    }
+
+    @Test
+    void clientIdFromTrustedProxy_isUsed() {
+        assertThat(resolve("10.1.2.3", "billing")).isEqualTo("id:billing");
+        assertThat(resolve("10.1.2.4", "billing")).isEqualTo("id:billing");
+    }
+
+    @Test
+    void clientIdFromUntrustedAddress_isIgnored() {
+        assertThat(resolve("203.0.113.7", "billing")).isEqualTo("ip:203.0.113.7");
+        assertThat(new ClientKeyResolver().resolve(exchange("10.1.2.3", "billing")).block()).isEqualTo("ip:10.1.2.3");
+    }
+
+    private String resolve(String address, String clientId) {
+        return resolver.resolve(exchange(address, clientId)).block();
+    }
+
+    private static MockServerWebExchange exchange(String address, String clientId) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/users")
+                .remoteAddress(new InetSocketAddress(address, 40000))
+                .header(ClientKeyResolver.CLIENT_ID_HEADER, clientId));
+    }
+}
@@ -0,0 +1,63 @@
+package io.trofol.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LocalRateLimiter limiter = new LocalRateLimiter(
+            new LocalTokenBucketStore(1000, Duration.ofMinutes(10), nanos::get), null, registry);
+
+    @Test
+    void clientBucket_allowsBurstThenRejectsWithRetryAfter() {
+        limiter.getConfig().put("users", new LocalRateLimiter.Config().setReplenishRate(1).setBurstCapacity(2));
+
+        assertThat(allowed("users", "ip:1")).isTrue();
+        assertThat(allowed("users", "ip:1")).isTrue();
+        RateLimiter.Response rejected = limiter.isAllowed("users", "ip:1").block();
+
+        assertThat(rejected.isAllowed()).isFalse();
+        assertThat(rejected.getHeaders()).containsEntry(LocalRateLimiter.REMAINING_HEADER, "0")
+                .containsEntry(LocalRateLimiter.RETRY_AFTER_HEADER, "1");
+        assertThat(allowed("users", "ip:2")).isTrue();
+        assertThat(registry.counter("gateway.ratelimit.requests", "route", "users", "result", "rejected").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void clientBucket_refillsOverTime() {
+        limiter.getConfig().put("users", new LocalRateLimiter.Config().setReplenishRate(2).setBurstCapacity(1));
+
+        assertThat(allowed("users", "ip:1")).isTrue();
+        assertThat(allowed("users", "ip:1")).isFalse();
+        nanos.addAndGet(Duration.ofMillis(500).toNanos());
+
+        assertThat(allowed("users", "ip:1")).isTrue();
+    }
+
+    @Test
+    void routeBucket_limitsAllClientsTogether() {
+        limiter.getConfig().put("users", new LocalRateLimiter.Config()
+                .setReplenishRate(10).setBurstCapacity(10)
+                .setRouteReplenishRate(1).setRouteBurstCapacity(3));
+
+        assertThat(allowed("users", "ip:1")).isTrue();
+        assertThat(allowed("users", "ip:2")).isTrue();
+        assertThat(allowed("users", "ip:3")).isTrue();
+
+        assertThat(allowed("users", "ip:4")).isFalse();
+        assertThat(allowed("notifications", "ip:4")).isTrue();
+    }
+
+    private boolean allowed(String routeId, String clientId) {
+        return limiter.isAllowed(routeId, clientId).block().isAllowed();
+    }
+}
@@ -0,0 +1,48 @@
+package notificationservice.broker;
+
+import notificationservice.dedup.EventDeduplicator;
+import notificationservice.service.NotificationDigest;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Передача партиций при ребалансе. Перед коммитом отзываемых партиций накопленные в окне
+ * дайджеста письма отправляются, чтобы их события попали в хранилище обработанных и были
+ * подтверждены, а не ушли повторно от нового владельца; не ушедшие письма по этим партициям
+ * остаются новому владельцу. Затем окна дедупликации этих партиций забываются.
+ */
+public class PartitionHandoffListener implements ConsumerAwareRebalanceListener {
+
+    private final NotificationDigest notificationDigest;
+    private final EventDeduplicator eventDeduplicator;
+
+    public PartitionHandoffListener(NotificationDigest notificationDigest, EventDeduplicator eventDeduplicator) {
+        this.notificationDigest = notificationDigest;
+        this.eventDeduplicator = eventDeduplicator;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            notificationDigest.flushAll(partitionNumbers(partitions));
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        eventDeduplicator.release(partitionNumbers(partitions));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        eventDeduplicator.release(partitionNumbers(partitions));
+    }
+
+    private static List<Integer> partitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+}
@@ -1,26 +1,59 @@
 package notificationservice.broker;
 
 import notificationservice.config.KafkaConfigProperties;
+import notificationservice.dedup.EventDeduplicator;
 import notificationservice.dto.UserEvent;
-import notificationservice.service.UserService;
+import notificationservice.service.NotificationDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class UserEventConsumer {
 
-    private final UserService userService;
+    private static final Logger log = LoggerFactory.getLogger(UserEventConsumer.class);
+
+    private final NotificationDigest notificationDigest;
     private final KafkaConfigProperties kafkaConfigProperties;
+    private final EventDeduplicator eventDeduplicator;
 
-    public UserEventConsumer(UserService userService, KafkaConfigProperties kafkaConfigProperties) {
-        this.userService = userService;
+    public UserEventConsumer(NotificationDigest notificationDigest, KafkaConfigProperties kafkaConfigProperties,
+                             EventDeduplicator eventDeduplicator) {
+        this.notificationDigest = notificationDigest;
         this.kafkaConfigProperties = kafkaConfigProperties;
+        this.eventDeduplicator = eventDeduplicator;
     }
 
-    @KafkaListener(topics = "#{@kafkaConfigProperties.topic}", groupId = "#{@kafkaConfigProperties.groupId}")
-    public void consume(UserEvent event) {
-        if (event.getEmail() != null && !event.getEmail().trim().isEmpty()) {
-            userService.sendEmail(event.getEmail(), event.getOperation());
+    @KafkaListener(topics = "#{@kafkaConfigProperties.topic}", groupId = "#{@kafkaConfigProperties.groupId}",
+            containerFactory = "userEventBatchListenerContainerFactory")
+    public void consume(List<UserEvent> events, @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+                        Acknowledgment acknowledgment) {
+        // Дубли отсекаются по окну своей партиции: её события после ребаланса читает другой экземпляр
+        Map<Integer, List<UserEvent>> deliverable = new LinkedHashMap<>();
+        int deliverableCount = 0;
+        for (int i = 0; i < events.size(); i++) {
+            UserEvent event = events.get(i);
+            if (event != null && event.getOperation() != null
+                    && event.getEmail() != null && !event.getEmail().trim().isEmpty()) {
+                deliverable.computeIfAbsent(partitions.get(i), partition -> new ArrayList<>()).add(event);
+                deliverableCount++;
+            }
         }
+        List<UserEvent> fresh = new ArrayList<>(deliverableCount);
+        deliverable.forEach((partition, partitionEvents) ->
+                fresh.addAll(eventDeduplicator.filterNew(partition, partitionEvents)));
+
+        notificationDigest.submit(fresh, acknowledgment);
+        log.debug("Принята пачка из {} событий, к отправке {}, повторов {}",
+                events.size(), fresh.size(), deliverableCount - fresh.size());
     }
 }
@@ -0,0 +1,38 @@
+package notificationservice.config;
+
+import notificationservice.dedup.FileProcessedEventStore;
+import notificationservice.dedup.KafkaProcessedEventStore;
+import notificationservice.dedup.ProcessedEventStore;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+@Configuration
+public class DedupConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.dedup.store", havingValue = "kafka", matchIfMissing = true)
+    public NewTopic processedEventsTopic(DedupProperties properties) {
+        return new NewTopic(properties.getTopic(), properties.getPartitions(), properties.getReplicationFactor())
+                .configs(Map.of(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(properties.getRetention().toMillis())));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.dedup.store", havingValue = "kafka", matchIfMissing = true)
+    public ProcessedEventStore kafkaProcessedEventStore(@Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+                                                        DedupProperties properties) {
+        return new KafkaProcessedEventStore(bootstrapServers, properties.getTopic(), properties.getTimeout());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.dedup.store", havingValue = "file")
+    public ProcessedEventStore fileProcessedEventStore(DedupProperties properties) {
+        return new FileProcessedEventStore(Path.of(properties.getStorePath()), properties.getWindowSize());
+    }
+}
@@ -0,0 +1,29 @@
+package notificationservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "notification.dedup")
+public class DedupProperties {
+    /** Сколько последних обработанных id помнить для каждой партиции user-events. */
+    private int windowSize = 100_000;
+    private double falsePositiveRate = 0.01;
+    /** kafka — общий служебный топик, нужен при нескольких репликах; file — локальные файлы одного экземпляра. */
+    private Store store = Store.KAFKA;
+    private String storePath = "data/processed-events";
+    private String topic = "user-events-processed";
+    /** Не меньше, чем партиций у user-events. */
+    private int partitions = 6;
+    private short replicationFactor = 1;
+    private Duration retention = Duration.ofDays(7);
+    private Duration timeout = Duration.ofSeconds(30);
+
+    public enum Store {
+        KAFKA, FILE
+    }
+}
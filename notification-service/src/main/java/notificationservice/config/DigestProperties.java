@@ -0,0 +1,18 @@
+package notificationservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "notification.digest")
+public class DigestProperties {
+    /** Сколько ждать следующих событий того же адресата; 0 — склеивать только внутри пачки из Kafka. */
+    private Duration window = Duration.ofSeconds(5);
+    private int maxPendingEvents = 10_000;
+    /** Сколько раз пытаться отправить письмо при временных ошибках SMTP, прежде чем отбросить его. */
+    private int maxAttempts = 5;
+}
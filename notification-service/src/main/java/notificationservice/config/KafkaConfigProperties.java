@@ -9,4 +9,6 @@ import org.springframework.stereotype.Component;
 public class KafkaConfigProperties {
     private String topic;
     private String groupId;
+    private int concurrency = 1;
+    private int maxPollRecords = 500;
 }
@@ -0,0 +1,55 @@
+package notificationservice.config;
+
+import notificationservice.broker.PartitionHandoffListener;
+import notificationservice.broker.UserEventDeserializer;
+import notificationservice.dedup.EventDeduplicator;
+import notificationservice.dto.UserEvent;
+import notificationservice.service.NotificationDigest;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Bean
+    public ConsumerFactory<String, UserEvent> userEventConsumerFactory(KafkaConfigProperties kafkaConfigProperties) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configs.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaConfigProperties.getGroupId());
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, kafkaConfigProperties.getMaxPollRecords());
+        return new DefaultKafkaConsumerFactory<>(configs,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new UserEventDeserializer()));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> userEventBatchListenerContainerFactory(
+            ConsumerFactory<String, UserEvent> userEventConsumerFactory,
+            KafkaConfigProperties kafkaConfigProperties,
+            NotificationDigest notificationDigest,
+            EventDeduplicator eventDeduplicator) {
+        ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(userEventConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(kafkaConfigProperties.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(
+                new PartitionHandoffListener(notificationDigest, eventDeduplicator));
+        return factory;
+    }
+}
@@ -0,0 +1,16 @@
+package notificationservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "notification.mail.pool")
+public class MailPoolProperties {
+    private int size = 4;
+    private int maxMessagesPerConnection = 100;
+    private Duration borrowTimeout = Duration.ofSeconds(30);
+}
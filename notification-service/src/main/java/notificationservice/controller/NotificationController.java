@@ -4,25 +4,47 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import notificationservice.dto.NotificationReceipt;
 import notificationservice.dto.OperationType;
-import notificationservice.service.UserService;
+import notificationservice.service.DeliveryTracker;
+import notificationservice.service.MailDispatcher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Locale;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
 
-    private final UserService userService;
+    private final MailDispatcher mailDispatcher;
+    private final DeliveryTracker deliveryTracker;
 
-    public NotificationController(UserService userService) {
-        this.userService = userService;
+    public NotificationController(MailDispatcher mailDispatcher, DeliveryTracker deliveryTracker) {
+        this.mailDispatcher = mailDispatcher;
+        this.deliveryTracker = deliveryTracker;
     }
 
+    /**
+     * Ставит письмо в приоритетную полосу очереди и сразу отвечает 202; статус доступен по Location.
+     */
     @PostMapping("/send")
-    public ResponseEntity<String> sendNotification(@Valid @RequestBody NotificationRequest request) {
-        userService.sendEmail(request.getEmail(), request.getOperation());
-        return ResponseEntity.ok("Email отправлен");
+    public ResponseEntity<NotificationReceipt> sendNotification(@Valid @RequestBody NotificationRequest request) {
+        NotificationReceipt receipt = deliveryTracker.track(mailDispatcher.dispatch(
+                request.getEmail(), request.getOperation(), request.getLocale()));
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/notifications/{trackingId}")
+                        .buildAndExpand(receipt.getTrackingId())
+                        .toUri())
+                .body(receipt);
+    }
+
+    @GetMapping("/{trackingId}")
+    public ResponseEntity<NotificationReceipt> getNotification(@PathVariable UUID trackingId) {
+        return ResponseEntity.of(deliveryTracker.find(trackingId));
     }
 
     @Data
@@ -33,5 +55,8 @@ public class NotificationController {
         
         @NotNull(message = "Операция обязательна")
         private OperationType operation;
+
+        /** Язык письма, например en; по умолчанию notification.mail.locale. */
+        private Locale locale;
     }
 }
@@ -0,0 +1,177 @@
+package notificationservice.dedup;
+
+import notificationservice.config.DedupProperties;
+import notificationservice.dto.UserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отсекает повторно доставленные события по eventId без обращения к базе. Состояние ведётся
+ * отдельно для каждой партиции user-events: фильтр Блума быстро отвечает «точно не видели»
+ * для подавляющего большинства событий, положительный ответ подтверждается по LRU-окну последних
+ * windowSize обработанных id партиции. Окно загружается из {@link ProcessedEventStore} при первом
+ * событии партиции и забывается, когда партицию забирают, — новый владелец прочитает его
+ * из того же хранилища, а при возврате партиции окно загрузится заново. Загрузка идёт вне
+ * монитора: пока читается окно одной партиции, пачки остальных фильтруются без ожидания.
+ */
+@Component
+public class EventDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(EventDeduplicator.class);
+
+    private final int windowSize;
+    private final double falsePositiveRate;
+    private final ProcessedEventStore store;
+    /** Окно партиции публикуется как future: читатели одной партиции ждут одну загрузку. */
+    private final Map<Integer, CompletableFuture<PartitionWindow>> partitions = new ConcurrentHashMap<>();
+    /** Партиция, из которой пришло ещё не отправленное событие: по ней markProcessed выбирает окно. */
+    private final Map<Long, Integer> claimed = new HashMap<>();
+
+    public EventDeduplicator(DedupProperties properties, ProcessedEventStore store) {
+        this.windowSize = properties.getWindowSize();
+        this.falsePositiveRate = properties.getFalsePositiveRate();
+        this.store = store;
+    }
+
+    /**
+     * Возвращает события партиции, которые ещё не обрабатывались; повторы внутри пачки тоже
+     * отбрасываются. События без eventId (старый формат) пропускаются всегда.
+     */
+    public List<UserEvent> filterNew(int partition, List<UserEvent> events) {
+        PartitionWindow window = window(partition);
+        List<UserEvent> fresh = new ArrayList<>(events.size());
+        Set<Long> inBatch = new HashSet<>();
+        synchronized (this) {
+            for (UserEvent event : events) {
+                Long eventId = event.getEventId();
+                if (eventId == null) {
+                    fresh.add(event);
+                } else if (inBatch.add(eventId) && !window.contains(eventId)) {
+                    fresh.add(event);
+                    claimed.put(eventId, partition);
+                }
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Запоминает события после успешной отправки писем. Запись в хранилище завершается
+     * до подтверждения пачки в Kafka, иначе после падения письма ушли бы повторно.
+     */
+    public void markProcessed(List<UserEvent> events) {
+        Map<Integer, List<Long>> byPartition = new LinkedHashMap<>();
+        synchronized (this) {
+            for (UserEvent event : events) {
+                Long eventId = event.getEventId();
+                Integer partition = eventId == null ? null : claimed.remove(eventId);
+                if (partition == null) {
+                    continue;
+                }
+                CompletableFuture<PartitionWindow> loaded = partitions.get(partition);
+                PartitionWindow window = loaded == null ? null : loaded.getNow(null);
+                // Партицию уже забрали: новый владелец получит событие повторно и решит сам
+                if (window != null && window.add(eventId)) {
+                    byPartition.computeIfAbsent(partition, p -> new ArrayList<>()).add(eventId);
+                }
+            }
+        }
+        byPartition.forEach(store::append);
+    }
+
+    /**
+     * Партиция, из которой пришло событие, ещё не отмеченное обработанным; null для события
+     * без eventId и для уже отмеченного.
+     */
+    public synchronized Integer partitionOf(UserEvent event) {
+        return event.getEventId() == null ? null : claimed.get(event.getEventId());
+    }
+
+    /**
+     * Забывает партиции, отданные другому экземпляру при ребалансе.
+     */
+    public synchronized void release(Collection<Integer> revoked) {
+        partitions.keySet().removeAll(revoked);
+        claimed.values().removeAll(revoked);
+        if (!revoked.isEmpty()) {
+            log.debug("Окна обработанных событий партиций {} освобождены", revoked);
+        }
+    }
+
+    private PartitionWindow window(int partition) {
+        CompletableFuture<PartitionWindow> loading = new CompletableFuture<>();
+        CompletableFuture<PartitionWindow> existing = partitions.putIfAbsent(partition, loading);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            loading.complete(new PartitionWindow(windowSize, falsePositiveRate, store.load(partition, windowSize)));
+        } catch (RuntimeException e) {
+            // Следующая пачка партиции попробует загрузить окно заново
+            partitions.remove(partition, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        return loading.join();
+    }
+
+    private static PartitionWindow await(CompletableFuture<PartitionWindow> window) {
+        try {
+            return window.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static final class PartitionWindow {
+        private final int windowSize;
+        private final double falsePositiveRate;
+        private final LinkedHashMap<Long, Boolean> ids;
+        private BloomFilter bloomFilter;
+        private long insertions;
+
+        private PartitionWindow(int windowSize, double falsePositiveRate, List<Long> loaded) {
+            this.windowSize = windowSize;
+            this.falsePositiveRate = falsePositiveRate;
+            this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                    return size() > windowSize;
+                }
+            };
+            this.bloomFilter = new BloomFilter(2 * windowSize, falsePositiveRate);
+            loaded.forEach(this::add);
+        }
+
+        private boolean contains(long eventId) {
+            return bloomFilter.mightContain(eventId) && ids.get(eventId) != null;
+        }
+
+        private boolean add(long eventId) {
+            if (ids.put(eventId, Boolean.TRUE) != null) {
+                return false;
+            }
+            bloomFilter.put(eventId);
+            // Вытесненные из окна id остаются в фильтре; когда их набирается на второе окно, фильтр пересобирается
+            if (++insertions > 2L * windowSize) {
+                bloomFilter = new BloomFilter(2 * windowSize, falsePositiveRate);
+                ids.keySet().forEach(bloomFilter::put);
+                insertions = ids.size();
+            }
+            return true;
+        }
+    }
+}
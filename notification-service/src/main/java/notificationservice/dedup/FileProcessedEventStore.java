@@ -0,0 +1,157 @@
+package notificationservice.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Журналы обработанных id в локальных файлах, по файлу на партицию, по 8 байт на id. Недописанный
+ * при падении хвост отбрасывается; когда в файле вдвое больше записей, чем окно, он переписывается
+ * последними windowSize id. Подходит только для одного экземпляра сервиса: другой экземпляр,
+ * получивший партицию, этих файлов не видит.
+ */
+public class FileProcessedEventStore implements ProcessedEventStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileProcessedEventStore.class);
+
+    private final Path directory;
+    private final int windowSize;
+    private final Map<Integer, Journal> journals = new HashMap<>();
+
+    public FileProcessedEventStore(Path directory, int windowSize) {
+        this.directory = directory;
+        this.windowSize = windowSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог журналов обработанных событий " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized List<Long> load(int partition, int limit) {
+        try {
+            return journal(partition).tail(limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать журнал обработанных событий " + path(partition), e);
+        }
+    }
+
+    @Override
+    public synchronized void append(int partition, List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        try {
+            Journal journal = journal(partition);
+            journal.append(eventIds);
+            if (journal.entries > 2L * windowSize) {
+                journal.compact(windowSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать журнал обработанных событий " + path(partition), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        journals.values().forEach(Journal::close);
+        journals.clear();
+    }
+
+    Path path(int partition) {
+        return directory.resolve("partition-" + partition + ".bin");
+    }
+
+    private Journal journal(int partition) throws IOException {
+        Journal journal = journals.get(partition);
+        if (journal == null) {
+            journal = new Journal(path(partition));
+            journals.put(partition, journal);
+        }
+        return journal;
+    }
+
+    private static final class Journal {
+        private final Path path;
+        private FileChannel channel;
+        private long entries;
+
+        private Journal(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.entries = channel.size() / Long.BYTES;
+            // Хвост, недописанный при падении, отбрасывается
+            channel.truncate(entries * Long.BYTES);
+            channel.position(entries * Long.BYTES);
+        }
+
+        private List<Long> tail(int limit) throws IOException {
+            long skip = Math.max(0, entries - limit);
+            List<Long> ids = new ArrayList<>((int) (entries - skip));
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = skip * Long.BYTES;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                position += read;
+                buffer.flip();
+                while (buffer.remaining() >= Long.BYTES) {
+                    ids.add(buffer.getLong());
+                }
+                buffer.compact();
+            }
+            return ids;
+        }
+
+        private void append(List<Long> eventIds) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(eventIds.size() * Long.BYTES);
+            eventIds.forEach(buffer::putLong);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            entries += eventIds.size();
+        }
+
+        private void compact(int windowSize) throws IOException {
+            List<Long> window = tail(windowSize);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(window.size() * Long.BYTES);
+                window.forEach(buffer::putLong);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            entries = window.size();
+            log.debug("Журнал обработанных событий {} сжат до {} записей", path, entries);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Не удалось закрыть журнал обработанных событий {}", path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package notificationservice.dedup;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Обработанные id в служебном топике Kafka: партиция N хранит id партиции N топика user-events,
+ * запись — пачка id по 8 байт. Экземпляр, получивший партицию при ребалансе, дочитывает её
+ * до конца и видит всё, что успел отправить прежний владелец. Размер топика ограничивает
+ * его retention; запись подтверждается всеми репликами до возврата из {@link #append}.
+ * В каждой записи хотя бы один id, поэтому последних limit записей хватает на окно из limit id,
+ * и загрузка читает только их, а не партицию целиком.
+ */
+public class KafkaProcessedEventStore implements ProcessedEventStore {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaProcessedEventStore.class);
+
+    private final String topic;
+    private final Duration timeout;
+    private final Map<String, Object> consumerConfigs;
+    private final KafkaProducer<byte[], byte[]> producer;
+
+    public KafkaProcessedEventStore(String bootstrapServers, String topic, Duration timeout) {
+        this.topic = topic;
+        this.timeout = timeout;
+        Map<String, Object> producerConfigs = new HashMap<>();
+        producerConfigs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerConfigs.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerConfigs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        producerConfigs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        this.producer = new KafkaProducer<>(producerConfigs, new ByteArraySerializer(), new ByteArraySerializer());
+        this.consumerConfigs = new HashMap<>();
+        consumerConfigs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerConfigs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerConfigs.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+    }
+
+    @Override
+    public List<Long> load(int partition, int limit) {
+        TopicPartition topicPartition = new TopicPartition(topic, partition);
+        Deque<Long> ids = new ArrayDeque<>(Math.min(limit, 1024));
+        try (KafkaConsumer<byte[], byte[]> consumer =
+                     new KafkaConsumer<>(consumerConfigs, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
+            consumer.assign(List.of(topicPartition));
+            long begin = consumer.beginningOffsets(List.of(topicPartition), timeout).get(topicPartition);
+            long end = consumer.endOffsets(List.of(topicPartition), timeout).get(topicPartition);
+            consumer.seek(topicPartition, Math.max(begin, end - limit));
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (consumer.position(topicPartition, timeout) < end) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Не удалось дочитать " + topicPartition + " за " + timeout);
+                }
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(Duration.ofMillis(200))) {
+                    ByteBuffer buffer = ByteBuffer.wrap(record.value());
+                    while (buffer.remaining() >= Long.BYTES) {
+                        if (ids.size() == limit) {
+                            ids.pollFirst();
+                        }
+                        ids.addLast(buffer.getLong());
+                    }
+                }
+            }
+        }
+        log.info("Из {} загружено {} обработанных событий", topicPartition, ids.size());
+        return new ArrayList<>(ids);
+    }
+
+    @Override
+    public void append(int partition, List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(eventIds.size() * Long.BYTES);
+        eventIds.forEach(buffer::putLong);
+        try {
+            producer.send(new ProducerRecord<>(topic, partition, null, buffer.array()))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Не удалось записать обработанные события в " + topic + "-" + partition, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        producer.close(timeout);
+    }
+}
@@ -0,0 +1,25 @@
+package notificationservice.dedup;
+
+import java.util.List;
+
+/**
+ * Хранилище id обработанных событий по партициям топика user-events. Партиция при ребалансе
+ * переходит к другому экземпляру, и тот читает её id отсюда, поэтому для нескольких реплик
+ * хранилище должно быть общим.
+ */
+public interface ProcessedEventStore extends AutoCloseable {
+
+    /**
+     * Последние не более limit id, обработанных в партиции, от старых к новым.
+     */
+    List<Long> load(int partition, int limit);
+
+    /**
+     * Дописывает id и возвращается, только когда запись надёжно сохранена.
+     */
+    void append(int partition, List<Long> eventIds);
+
+    @Override
+    default void close() {
+    }
+}
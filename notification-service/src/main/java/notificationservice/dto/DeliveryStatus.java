@@ -0,0 +1,7 @@
+package notificationservice.dto;
+
+public enum DeliveryStatus {
+    QUEUED,
+    SENT,
+    FAILED
+}
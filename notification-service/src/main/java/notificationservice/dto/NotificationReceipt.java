@@ -0,0 +1,16 @@
+package notificationservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationReceipt {
+    private UUID trackingId;
+    private DeliveryStatus status;
+    private String error;
+}
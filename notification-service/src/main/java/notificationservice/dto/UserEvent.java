@@ -4,10 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserEvent {
     private OperationType operation;
+    private Long userId;
     private String email;
+    /** id строки outbox: одинаков при повторной отправке, по нему потребители отсекают дубли. */
+    private Long eventId;
+    private Instant occurredAt;
 }
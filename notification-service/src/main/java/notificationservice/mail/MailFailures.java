@@ -0,0 +1,35 @@
+package notificationservice.mail;
+
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+
+/**
+ * Разделяет ошибки отправки на постоянные и временные. Постоянная ошибка — некорректный адрес
+ * или письмо либо отказ SMTP-сервера принять получателя (ответ 5xx на RCPT TO): повтор ничего
+ * не изменит. Всё остальное (обрыв соединения, таймаут, 4xx) стоит повторить позже.
+ */
+public final class MailFailures {
+
+    private MailFailures() {
+    }
+
+    public static boolean isPermanent(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MailParseException || cause instanceof MailPreparationException
+                    || cause instanceof AddressException) {
+                return true;
+            }
+            // Получателей с ответом 5xx JavaMail кладёт в invalid, с ответом 4xx — в validUnsent
+            if (cause instanceof SendFailedException sendFailed) {
+                return hasAny(sendFailed.getInvalidAddresses()) && !hasAny(sendFailed.getValidUnsentAddresses());
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAny(Object[] addresses) {
+        return addresses != null && addresses.length > 0;
+    }
+}
@@ -0,0 +1,262 @@
+package notificationservice.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import notificationservice.config.MailPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул уже аутентифицированных SMTP-соединений. Соединение переиспользуется для многих писем
+ * и переоткрывается после maxMessagesPerConnection или при ошибке, вместо рукопожатия
+ * и AUTH на каждое письмо, как в JavaMailSender.send.
+ */
+@Component
+public class PooledMailTransport implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledMailTransport.class);
+
+    private final JavaMailSenderImpl mailSender;
+    private final MailPoolProperties properties;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+
+    private Timer sendLatency;
+    private Counter connectionsOpened;
+
+    public PooledMailTransport(JavaMailSenderImpl mailSender, MailPoolProperties properties) {
+        this.mailSender = mailSender;
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getSize(), true);
+    }
+
+    public void send(SimpleMailMessage message) {
+        send(List.of(message));
+    }
+
+    /**
+     * Отправляет все письма через одно соединение из пула. Ошибка одного письма не прерывает
+     * остальные: неотправленные письма перечислены в {@link MailSendException#getFailedMessages()},
+     * как у JavaMailSender. Если не удалось подключиться к серверу, оставшиеся письма
+     * считаются неотправленными с той же ошибкой.
+     */
+    public void send(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        acquire();
+        active.incrementAndGet();
+        PooledConnection connection = null;
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        try {
+            connection = idle.poll();
+            ConnectFailedException connectFailure = null;
+            for (SimpleMailMessage message : messages) {
+                if (connectFailure != null) {
+                    failedMessages.put(message, connectFailure);
+                    continue;
+                }
+                try {
+                    connection = sendOne(connection, toMimeMessage(message));
+                } catch (ConnectFailedException e) {
+                    connectFailure = e;
+                    failedMessages.put(message, e);
+                } catch (MailException e) {
+                    failedMessages.put(message, e);
+                }
+            }
+        } finally {
+            active.decrementAndGet();
+            release(connection);
+            permits.release();
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private PooledConnection sendOne(PooledConnection connection, MimeMessage message) {
+        long start = System.nanoTime();
+        try {
+            if (connection == null || !connection.isUsable(properties.getMaxMessagesPerConnection())) {
+                close(connection);
+                connection = connect();
+            }
+            try {
+                connection.send(message);
+            } catch (MessagingException e) {
+                if (MailFailures.isPermanent(e)) {
+                    throw e;
+                }
+                log.warn("SMTP-соединение оборвалось, переподключение: {}", e.getMessage());
+                close(connection);
+                connection = connect();
+                connection.send(message);
+            }
+            return connection;
+        } catch (MessagingException e) {
+            close(connection);
+            throw new MailSendException("Не удалось отправить письмо", e);
+        } finally {
+            if (sendLatency != null) {
+                sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        SimpleMailMessage copy = new SimpleMailMessage(message);
+        if (copy.getFrom() == null && mailSender.getUsername() != null) {
+            copy.setFrom(mailSender.getUsername());
+        }
+        copy.copyTo(new MimeMailMessage(mimeMessage));
+        try {
+            mimeMessage.saveChanges();
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Некорректное письмо", e);
+        }
+        return mimeMessage;
+    }
+
+    private PooledConnection connect() {
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+        Transport transport;
+        try {
+            transport = mailSender.getSession().getTransport(protocol);
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        } catch (MessagingException e) {
+            throw new ConnectFailedException(e);
+        }
+        open.incrementAndGet();
+        if (connectionsOpened != null) {
+            connectionsOpened.increment();
+        }
+        return new PooledConnection(transport);
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(properties.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("Нет свободного SMTP-соединения за " + properties.getBorrowTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Ожидание SMTP-соединения прервано", e);
+        }
+    }
+
+    private void release(PooledConnection connection) {
+        if (connection != null && connection.isUsable(properties.getMaxMessagesPerConnection())) {
+            idle.offer(connection);
+        } else {
+            close(connection);
+        }
+    }
+
+    private void close(PooledConnection connection) {
+        if (connection != null && connection.close()) {
+            open.decrementAndGet();
+        }
+    }
+
+    public int getActiveConnections() {
+        return active.get();
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mail.pool.connections.active", active, AtomicInteger::get)
+                .description("SMTP-соединения, занятые отправкой")
+                .register(registry);
+        Gauge.builder("mail.pool.connections.open", open, AtomicInteger::get)
+                .description("Открытые SMTP-соединения")
+                .register(registry);
+        Gauge.builder("mail.pool.utilization", this, pool -> (double) pool.active.get() / pool.properties.getSize())
+                .description("Доля занятых слотов пула")
+                .register(registry);
+        connectionsOpened = Counter.builder("mail.pool.connections.opened")
+                .description("Новые SMTP-подключения (рукопожатие и AUTH)")
+                .register(registry);
+        sendLatency = Timer.builder("mail.send.latency")
+                .description("Время отправки одного письма через пул")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            close(connection);
+        }
+    }
+
+    /** Сервер недоступен: остальные письма пачки не пытаемся отправить тем же путём. */
+    private static final class ConnectFailedException extends MailSendException {
+        private ConnectFailedException(MessagingException cause) {
+            super("Не удалось подключиться к SMTP-серверу", cause);
+        }
+    }
+
+    private static final class PooledConnection {
+        private final Transport transport;
+        private int sent;
+        private boolean closed;
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+
+        private void send(MimeMessage message) throws MessagingException {
+            transport.sendMessage(message, message.getAllRecipients());
+            sent++;
+        }
+
+        // без transport.isConnected(): он шлёт NOOP на каждый вызов, обрыв ловится при отправке
+        private boolean isUsable(int maxMessages) {
+            return !closed && sent < maxMessages;
+        }
+
+        private boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Ошибка закрытия SMTP-соединения: {}", e.getMessage());
+            }
+            return true;
+        }
+    }
+}
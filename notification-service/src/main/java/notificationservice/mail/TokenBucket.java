@@ -0,0 +1,56 @@
+package notificationservice.mail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ограничитель скорости отправки для одного SMTP-провайдера: permitsPerSecond писем в секунду
+ * с запасом burst. Запрос больше запаса разрешён, но уводит ведро в долг — следующий вызывающий
+ * подождёт, пока долг не погасится.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Блокирует поток, пока не наберётся permits жетонов.
+     */
+    public void acquire(int permits) {
+        long waitNanos = reserve(permits);
+        while (waitNanos > 0) {
+            long deadline = System.nanoTime() + waitNanos;
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            waitNanos = deadline - System.nanoTime();
+        }
+    }
+
+    public synchronized double availablePermits() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private synchronized long reserve(int permits) {
+        long now = System.nanoTime();
+        refill(now);
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,63 @@
+package notificationservice.service;
+
+import notificationservice.dto.DeliveryStatus;
+import notificationservice.dto.NotificationReceipt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Статусы писем, поставленных в очередь через API. Хранятся последние maxEntries —
+ * это справка для клиента, а не журнал доставки.
+ */
+@Component
+public class DeliveryTracker {
+
+    private final Map<UUID, NotificationReceipt> receipts;
+
+    public DeliveryTracker(@Value("${notification.tracking.max-entries:10000}") int maxEntries) {
+        this.receipts = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, NotificationReceipt> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public NotificationReceipt track(CompletableFuture<Void> delivery) {
+        UUID trackingId = UUID.randomUUID();
+        NotificationReceipt receipt = new NotificationReceipt(trackingId, DeliveryStatus.QUEUED, null);
+        synchronized (receipts) {
+            receipts.put(trackingId, receipt);
+        }
+        delivery.whenComplete((ignored, error) -> update(new NotificationReceipt(trackingId,
+                error == null ? DeliveryStatus.SENT : DeliveryStatus.FAILED,
+                error == null ? null : rootMessage(error))));
+        return receipt;
+    }
+
+    public Optional<NotificationReceipt> find(UUID trackingId) {
+        synchronized (receipts) {
+            return Optional.ofNullable(receipts.get(trackingId));
+        }
+    }
+
+    private void update(NotificationReceipt receipt) {
+        synchronized (receipts) {
+            receipts.replace(receipt.getTrackingId(), receipt);
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+}
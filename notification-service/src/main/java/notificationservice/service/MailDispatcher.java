@@ -0,0 +1,236 @@
+package notificationservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import notificationservice.dto.OperationType;
+import notificationservice.mail.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Очередь отправки писем с полосами приоритета: письма из API обгоняют уведомления по событиям.
+ * Один поток разбирает очередь: занимает слот (семафор ограничивает число одновременных
+ * SMTP-отправок), берёт самое приоритетное задание, выжидает жетоны ограничителя скорости
+ * провайдера и отдаёт задание виртуальному потоку. Пачка событий режется на куски по chunkSize
+ * писем, каждый кусок уходит через одно соединение пула. Жетоны берутся по одному на письмо:
+ * если за это время в очереди появилось задание приоритетнее, кусок с уже набранными жетонами
+ * возвращается в очередь, и письмо из API не ждёт жетонов всего куска.
+ */
+@Component
+public class MailDispatcher implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private final UserService userService;
+    private final Semaphore permits;
+    private final int chunkSize;
+    private final TokenBucket rateLimiter;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PriorityBlockingQueue<Task> queue = new PriorityBlockingQueue<>(64,
+            Comparator.comparing((Task task) -> task.priority).thenComparingLong(task -> task.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<MailPriority, AtomicInteger> depth = new EnumMap<>(MailPriority.class);
+    /** Заполняется в bindTo, когда поток отправки уже работает, поэтому публикуется готовой копией. */
+    private volatile Map<MailPriority, Timer> waitTimers = Map.of();
+    private final Thread worker;
+
+    public MailDispatcher(UserService userService,
+                          @Value("${notification.mail.max-concurrency:32}") int maxConcurrency,
+                          @Value("${notification.mail.chunk-size:20}") int chunkSize,
+                          @Value("${notification.mail.rate-limit.permits-per-second:10}") double permitsPerSecond,
+                          @Value("${notification.mail.rate-limit.burst:20}") int burst) {
+        this.userService = userService;
+        this.permits = new Semaphore(maxConcurrency);
+        this.chunkSize = chunkSize;
+        this.rateLimiter = new TokenBucket(permitsPerSecond, burst);
+        for (MailPriority priority : MailPriority.values()) {
+            depth.put(priority, new AtomicInteger());
+        }
+        this.worker = Thread.ofPlatform().name("mail-dispatcher").daemon().start(this::drain);
+    }
+
+    public CompletableFuture<Void> dispatch(String email, OperationType operation, Locale locale) {
+        return enqueue(MailPriority.API, List.of(userService.buildMessage(email, operation, locale)));
+    }
+
+    /**
+     * Если часть писем не ушла, результат завершается {@link MailSendException}, в
+     * {@link MailSendException#getFailedMessages()} которого ровно неотправленные письма
+     * из переданного списка с причиной по каждому.
+     */
+    public CompletableFuture<Void> dispatchMessages(List<SimpleMailMessage> messages) {
+        List<List<SimpleMailMessage>> chunks = new ArrayList<>();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += chunkSize) {
+            List<SimpleMailMessage> chunk = messages.subList(from, Math.min(from + chunkSize, messages.size()));
+            chunks.add(chunk);
+            results.add(enqueue(MailPriority.BULK, chunk));
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).handle((ignored, error) -> {
+            if (error == null) {
+                return null;
+            }
+            Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).isCompletedExceptionally()) {
+                    collectFailures(chunks.get(i), results.get(i).exceptionNow(), failedMessages);
+                }
+            }
+            throw new MailSendException(failedMessages);
+        });
+    }
+
+    private static void collectFailures(List<SimpleMailMessage> chunk, Throwable error, Map<Object, Exception> failedMessages) {
+        if (error instanceof MailSendException mailError && !mailError.getFailedMessages().isEmpty()) {
+            failedMessages.putAll(mailError.getFailedMessages());
+            return;
+        }
+        // Кусок не дошёл до SMTP (нет соединения в пуле, остановка сервиса) — не ушло ни одно письмо
+        Exception cause = error instanceof Exception exception ? exception : new MailSendException(error.getMessage(), error);
+        chunk.forEach(message -> failedMessages.put(message, cause));
+    }
+
+    private CompletableFuture<Void> enqueue(MailPriority priority, List<SimpleMailMessage> messages) {
+        Task task = new Task(priority, sequence.incrementAndGet(), List.copyOf(messages));
+        depth.get(priority).incrementAndGet();
+        queue.add(task);
+        return task.future;
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                permits.acquire();
+                task = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            depth.get(task.priority).decrementAndGet();
+            Task ready;
+            try {
+                ready = reserveTokens(task);
+            } catch (InterruptedException e) {
+                permits.release();
+                break;
+            }
+            Timer waitTimer = waitTimers.get(ready.priority);
+            if (waitTimer != null) {
+                waitTimer.record(System.nanoTime() - ready.enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+            try {
+                executor.execute(() -> send(ready));
+            } catch (RuntimeException e) {
+                permits.release();
+                ready.future.completeExceptionally(e);
+            }
+        }
+        log.debug("Очередь отправки писем остановлена");
+    }
+
+    /**
+     * Набирает жетоны на все письма задания и возвращает задание, готовое к отправке: им может
+     * оказаться более приоритетное задание, пришедшее, пока набирались жетоны текущего.
+     */
+    private Task reserveTokens(Task task) throws InterruptedException {
+        while (task.reserved < task.messages.size()) {
+            rateLimiter.acquire(1);
+            if (Thread.currentThread().isInterrupted()) {
+                task.future.completeExceptionally(new CancellationException("Сервис останавливается"));
+                throw new InterruptedException();
+            }
+            task.reserved++;
+            Task head = queue.peek();
+            if (task.reserved < task.messages.size() && head != null && head.priority.compareTo(task.priority) < 0) {
+                depth.get(task.priority).incrementAndGet();
+                queue.add(task);
+                // Очередь не пуста: голова — то самое приоритетное задание или ещё более срочное
+                task = queue.poll();
+                depth.get(task.priority).decrementAndGet();
+            }
+        }
+        return task;
+    }
+
+    private void send(Task task) {
+        try {
+            userService.sendEmails(task.messages);
+            task.future.complete(null);
+        } catch (RuntimeException e) {
+            task.future.completeExceptionally(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<MailPriority, Timer> timers = new EnumMap<>(MailPriority.class);
+        for (MailPriority priority : MailPriority.values()) {
+            String lane = priority.name().toLowerCase();
+            Gauge.builder("mail.queue.depth", depth.get(priority), AtomicInteger::get)
+                    .description("Задания в очереди отправки")
+                    .tag("lane", lane)
+                    .register(registry);
+            timers.put(priority, Timer.builder("mail.queue.wait")
+                    .description("Время от постановки задания в очередь до начала отправки")
+                    .tag("lane", lane)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        waitTimers = Collections.unmodifiableMap(timers);
+        Gauge.builder("mail.rate.tokens", rateLimiter, TokenBucket::availablePermits)
+                .description("Свободные жетоны ограничителя скорости SMTP-провайдера")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        worker.interrupt();
+        List<Task> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(task -> task.future.completeExceptionally(new CancellationException("Сервис останавливается")));
+        executor.close();
+    }
+
+    private static final class Task {
+        private final MailPriority priority;
+        private final long sequence;
+        private final List<SimpleMailMessage> messages;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        /** Жетоны, уже набранные на письма задания; доступ только из потока разбора очереди. */
+        private int reserved;
+
+        private Task(MailPriority priority, long sequence, List<SimpleMailMessage> messages) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.messages = messages;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package notificationservice.service;
+
+/**
+ * Полосы очереди отправки в порядке приоритета.
+ */
+public enum MailPriority {
+    /** Письма, запрошенные через API: их ждёт клиент. */
+    API,
+    /** Уведомления по событиям из Kafka. */
+    BULK
+}
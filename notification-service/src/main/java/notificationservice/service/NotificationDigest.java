@@ -0,0 +1,405 @@
+package notificationservice.service;
+
+import notificationservice.config.DigestProperties;
+import notificationservice.dedup.EventDeduplicator;
+import notificationservice.dto.OperationType;
+import notificationservice.dto.UserEvent;
+import notificationservice.mail.MailFailures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Склеивает события одного адресата, пришедшие в пределах окна, в одно письмо. Окно адресата
+ * открывает его первое событие; по истечении окна письмо уходит, события запоминаются
+ * в EventDeduplicator, и пачки Kafka подтверждаются строго в порядке поступления — пачка
+ * подтверждается, только когда отправлены письма по всем её событиям и по всем пачкам до неё.
+ * Повторно отправляются только письма, которые не ушли: при временной ошибке окно адресата
+ * продлевается (с каждой попыткой вдвое), после maxAttempts попыток или при постоянной ошибке
+ * (см. {@link MailFailures}) письмо отбрасывается с записью в лог, а его события считаются
+ * обработанными, чтобы один недоставляемый адресат не держал подтверждения остальных.
+ * При отзыве партиций недоставленные письма по их событиям не повторяются: события остаются
+ * неподтверждёнными, и письма отправит новый владелец партиции.
+ */
+@Component
+public class NotificationDigest implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDigest.class);
+
+    private final MailDispatcher mailDispatcher;
+    private final UserService userService;
+    private final EventDeduplicator eventDeduplicator;
+    private final long windowMillis;
+    private final int maxPendingEvents;
+    private final int maxAttempts;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService flusher;
+
+    private final Map<String, Digest> pending = new LinkedHashMap<>();
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    private int pendingEvents;
+    /** Одна отправка за раз: передача партиций не должна разойтись с фоновой отправкой. */
+    private final Object flushLock = new Object();
+
+    @Autowired
+    public NotificationDigest(MailDispatcher mailDispatcher, UserService userService,
+                              EventDeduplicator eventDeduplicator, DigestProperties properties) {
+        this(mailDispatcher, userService, eventDeduplicator, properties, System::currentTimeMillis, true);
+    }
+
+    /**
+     * Без фонового потока (scheduled = false) окна закрывает только явный вызов {@link #flushDue()}.
+     */
+    NotificationDigest(MailDispatcher mailDispatcher, UserService userService, EventDeduplicator eventDeduplicator,
+                       DigestProperties properties, LongSupplier clock, boolean scheduled) {
+        this.mailDispatcher = mailDispatcher;
+        this.userService = userService;
+        this.eventDeduplicator = eventDeduplicator;
+        this.windowMillis = properties.getWindow().toMillis();
+        this.maxPendingEvents = properties.getMaxPendingEvents();
+        this.maxAttempts = Math.max(1, properties.getMaxAttempts());
+        this.clock = clock;
+        if (windowMillis > 0 && scheduled) {
+            long tick = Math.clamp(windowMillis / 10, 10, 500);
+            this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("notification-digest").factory());
+            this.flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    flushDue();
+                } catch (RuntimeException e) {
+                    log.error("Ошибка отправки накопленных писем", e);
+                }
+            }, tick, tick, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Принимает пачку событий. Без окна письма отправляются сразу: ушедшие и отброшенные
+     * запоминаются в EventDeduplicator, а временная ошибка пробрасывается вызывающему —
+     * пачку повторит контейнер Kafka, и снова уйдут только неотправленные письма.
+     * С окном пачка подтверждается позже из потока отправки.
+     */
+    public void submit(List<UserEvent> events, Acknowledgment acknowledgment) {
+        if (windowMillis <= 0) {
+            Map<String, Digest> digests = new LinkedHashMap<>();
+            for (UserEvent event : events) {
+                digests.computeIfAbsent(event.getEmail(), Digest::new).add(event, null);
+            }
+            Map<Digest, Exception> failures = send(digests.values());
+            List<UserEvent> processed = new ArrayList<>(events.size());
+            Exception retryable = null;
+            for (Digest digest : digests.values()) {
+                Exception failure = failures.get(digest);
+                if (failure == null || isDropped(digest, failure)) {
+                    processed.addAll(digest.events);
+                } else {
+                    retryable = failure;
+                }
+            }
+            eventDeduplicator.markProcessed(processed);
+            if (retryable != null) {
+                throw new MailSendException("Не удалось отправить письма по пачке событий", retryable);
+            }
+            acknowledgment.acknowledge();
+            return;
+        }
+        synchronized (this) {
+            while (pendingEvents >= maxPendingEvents) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Ожидание отправки накопленных писем прервано", e);
+                }
+            }
+            Batch batch = new Batch(acknowledgment);
+            batches.add(batch);
+            long deadline = clock.getAsLong() + windowMillis;
+            for (UserEvent event : events) {
+                pending.computeIfAbsent(event.getEmail(), email -> new Digest(email, deadline)).add(event, batch);
+            }
+            pendingEvents += events.size();
+            acknowledgeCompleted();
+        }
+    }
+
+    /**
+     * Отправляет все накопленные письма, не дожидаясь окна, — перед тем как отдать партиции
+     * другому экземпляру. Письма по событиям отзываемых партиций, которые не ушли, больше
+     * не повторяются здесь: их события и пачки с ними не подтверждаются, новый владелец
+     * получит события заново.
+     */
+    public void flushAll(Collection<Integer> revoked) {
+        if (windowMillis <= 0) {
+            return;
+        }
+        synchronized (flushLock) {
+            synchronized (this) {
+                pending.values().forEach(digest -> digest.deadline = 0);
+            }
+            flushDue();
+            if (!revoked.isEmpty()) {
+                handOff(revoked);
+            }
+        }
+    }
+
+    /**
+     * Убирает из повторов события отзываемых партиций. Пачка с такими событиями не будет
+     * подтверждена, а с ней и все пачки после неё: подтверждение более поздней пачки сдвинуло бы
+     * смещение отзываемой партиции дальше неотправленного события. Отправленные события
+     * этих пачек уже в EventDeduplicator и новым владельцем будут отброшены.
+     */
+    private synchronized void handOff(Collection<Integer> revoked) {
+        Set<Batch> abandoned = Collections.newSetFromMap(new IdentityHashMap<>());
+        int dropped = 0;
+        for (Iterator<Digest> it = pending.values().iterator(); it.hasNext(); ) {
+            Digest digest = it.next();
+            dropped += digest.removeIf(event -> isRevoked(event, revoked), abandoned);
+            if (digest.events.isEmpty()) {
+                it.remove();
+            }
+        }
+        if (dropped == 0) {
+            return;
+        }
+        pendingEvents -= dropped;
+        boolean abandoning = false;
+        for (Iterator<Batch> it = batches.iterator(); it.hasNext(); ) {
+            abandoning |= abandoned.contains(it.next());
+            if (abandoning) {
+                it.remove();
+            }
+        }
+        acknowledgeCompleted();
+        notifyAll();
+        log.warn("Партиции {} отозваны: {} событий с неотправленными письмами оставлены новому владельцу",
+                revoked, dropped);
+    }
+
+    /** Событие без eventId не привязано к партиции: его письмо повторяет этот экземпляр. */
+    private boolean isRevoked(UserEvent event, Collection<Integer> revoked) {
+        Integer partition = eventDeduplicator.partitionOf(event);
+        return partition != null && revoked.contains(partition);
+    }
+
+    void flushDue() {
+        synchronized (flushLock) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<Digest> due = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            for (Iterator<Digest> it = pending.values().iterator(); it.hasNext(); ) {
+                Digest digest = it.next();
+                if (digest.deadline <= now) {
+                    due.add(digest);
+                    it.remove();
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Digest, Exception> failures = send(due);
+        List<Digest> completed = new ArrayList<>(due.size());
+        List<Digest> retries = new ArrayList<>();
+        for (Digest digest : due) {
+            Exception failure = failures.get(digest);
+            if (failure == null || isDropped(digest, failure)) {
+                completed.add(digest);
+            } else {
+                retries.add(digest);
+            }
+        }
+
+        try {
+            eventDeduplicator.markProcessed(completed.stream().flatMap(digest -> digest.events.stream()).toList());
+        } catch (RuntimeException e) {
+            // Письма уже ушли: пачки всё равно подтверждаются, иначе после редоставки письма повторятся
+            log.error("Не удалось записать отправленные события в журнал", e);
+        }
+        synchronized (this) {
+            long now = clock.getAsLong();
+            for (Digest digest : retries) {
+                digest.deadline = now + retryDelay(digest.attempts);
+                pending.merge(digest.email, digest, Digest::prependTo);
+            }
+            for (Digest digest : completed) {
+                digest.batches.forEach(batch -> batch.remaining--);
+                pendingEvents -= digest.events.size();
+            }
+            acknowledgeCompleted();
+            notifyAll();
+        }
+        if (!retries.isEmpty()) {
+            log.warn("Не удалось отправить {} из {} писем, повтор через {} мс",
+                    retries.size(), due.size(), retryDelay(retries.get(0).attempts), failures.get(retries.get(0)));
+        }
+        log.debug("Отправлено {} писем по накопленным событиям", completed.size());
+    }
+
+    /**
+     * Засчитывает неудачную попытку и решает, отбросить ли письмо: постоянная ошибка
+     * не исправится повтором, а лимит попыток не даёт недоставляемому адресату копить пачки.
+     */
+    private boolean isDropped(Digest digest, Exception failure) {
+        digest.attempts++;
+        if (MailFailures.isPermanent(failure)) {
+            log.warn("Письмо для {} отклонено и отброшено ({} событий): {}",
+                    digest.email, digest.events.size(), failure.getMessage());
+            return true;
+        }
+        if (windowMillis > 0 && digest.attempts >= maxAttempts) {
+            log.error("Письмо для {} не отправлено за {} попыток и отброшено ({} событий)",
+                    digest.email, digest.attempts, digest.events.size(), failure);
+            return true;
+        }
+        return false;
+    }
+
+    private long retryDelay(int attempts) {
+        return windowMillis << Math.min(attempts - 1, 10);
+    }
+
+    /**
+     * Отправляет письма по дайджестам и возвращает ошибку для каждого дайджеста, письмо которого не ушло.
+     */
+    private Map<Digest, Exception> send(Collection<Digest> digests) {
+        Map<SimpleMailMessage, Digest> byMessage = new IdentityHashMap<>();
+        List<SimpleMailMessage> messages = new ArrayList<>(digests.size());
+        for (Digest digest : digests) {
+            SimpleMailMessage message = userService.buildDigestMessage(digest.email, digest.operations());
+            messages.add(message);
+            byMessage.put(message, digest);
+        }
+        try {
+            mailDispatcher.dispatchMessages(messages).join();
+            return Map.of();
+        } catch (CompletionException e) {
+            Map<Digest, Exception> failures = new HashMap<>();
+            if (e.getCause() instanceof MailSendException mailError) {
+                mailError.getFailedMessages().forEach((message, failure) -> {
+                    Digest digest = byMessage.get(message);
+                    if (digest != null) {
+                        failures.put(digest, failure);
+                    }
+                });
+            }
+            if (failures.isEmpty()) {
+                // Неизвестно, какие письма ушли, — повторяются все
+                Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                digests.forEach(digest -> failures.put(digest, cause));
+            }
+            return failures;
+        }
+    }
+
+    private void acknowledgeCompleted() {
+        while (!batches.isEmpty() && batches.peekFirst().remaining == 0) {
+            batches.pollFirst().acknowledgment.acknowledge();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Неотправленные события не подтверждены и придут снова после рестарта
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    private static final class Batch {
+        private final Acknowledgment acknowledgment;
+        private int remaining;
+
+        private Batch(Acknowledgment acknowledgment) {
+            this.acknowledgment = acknowledgment;
+        }
+    }
+
+    private static final class Digest {
+        private final String email;
+        private long deadline;
+        private int attempts;
+        private final List<UserEvent> events = new ArrayList<>();
+        private final List<Batch> batches = new ArrayList<>();
+
+        private Digest(String email) {
+            this(email, 0);
+        }
+
+        private Digest(String email, long deadline) {
+            this.email = email;
+            this.deadline = deadline;
+        }
+
+        private void add(UserEvent event, Batch batch) {
+            events.add(event);
+            if (batch != null) {
+                batch.remaining++;
+                batches.add(batch);
+            }
+        }
+
+        /** Убирает события по условию, их пачки добавляет в affected; возвращает число убранных. */
+        private int removeIf(Predicate<UserEvent> filter, Collection<Batch> affected) {
+            int removed = 0;
+            for (int i = events.size() - 1; i >= 0; i--) {
+                if (filter.test(events.get(i))) {
+                    events.remove(i);
+                    affected.add(batches.remove(i));
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        /** Повторяющиеся подряд операции (несколько правок) попадают в письмо один раз. */
+        private List<OperationType> operations() {
+            List<OperationType> operations = new ArrayList<>();
+            for (UserEvent event : events) {
+                if (operations.isEmpty() || operations.get(operations.size() - 1) != event.getOperation()) {
+                    operations.add(event.getOperation());
+                }
+            }
+            return operations;
+        }
+
+        /** Неотправленный дайджест встаёт перед событиями, пришедшими за время попытки. */
+        private static Digest prependTo(Digest newer, Digest failed) {
+            failed.events.addAll(newer.events);
+            failed.batches.addAll(newer.batches);
+            return failed;
+        }
+    }
+}
@@ -1,24 +1,58 @@
 package notificationservice.service;
 
 import notificationservice.dto.OperationType;
+import notificationservice.mail.PooledMailTransport;
+import notificationservice.template.MailTemplates;
+import notificationservice.template.RenderedMail;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 @Service
 public class UserService {
 
-    private final JavaMailSender mailSender;
+    private final PooledMailTransport mailTransport;
+    private final MailTemplates mailTemplates;
 
-    public UserService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public UserService(PooledMailTransport mailTransport, MailTemplates mailTemplates) {
+        this.mailTransport = mailTransport;
+        this.mailTemplates = mailTemplates;
     }
 
     public void sendEmail(String email, OperationType operation) {
+        mailTransport.send(buildMessage(email, operation));
+    }
+
+    public void sendEmails(List<SimpleMailMessage> messages) {
+        mailTransport.send(messages);
+    }
+
+    /**
+     * Одно письмо на несколько операций подряд; одиночная операция даёт обычный текст.
+     */
+    public SimpleMailMessage buildDigestMessage(String email, List<OperationType> operations) {
+        if (operations.size() == 1) {
+            return buildMessage(email, operations.get(0));
+        }
+        return toMessage(email, mailTemplates.renderDigest(operations, null, Map.of("email", email)));
+    }
+
+    public SimpleMailMessage buildMessage(String email, OperationType operation) {
+        return buildMessage(email, operation, null);
+    }
+
+    public SimpleMailMessage buildMessage(String email, OperationType operation, Locale locale) {
+        return toMessage(email, mailTemplates.render(operation, locale, Map.of("email", email)));
+    }
+
+    private static SimpleMailMessage toMessage(String email, RenderedMail mail) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(email);
-        message.setSubject("Уведомление от сервиса");
-        message.setText(operation.getEmailText());
-        mailSender.send(message);
+        message.setSubject(mail.subject());
+        message.setText(mail.body());
+        return message;
     }
 }
@@ -0,0 +1,63 @@
+package notificationservice.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Скомпилированный шаблон: текст разобран один раз на литералы и подстановки {{имя}},
+ * поэтому рендеринг — только последовательные append без поиска и замены по строке.
+ * Отсутствующая в модели переменная подставляется пустой строкой.
+ */
+public final class MailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private MailTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static MailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, from);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literals.add(source.substring(from));
+                break;
+            }
+            literals.add(source.substring(from, open));
+            variables.add(source.substring(open + OPEN.length(), close).trim());
+            from = close + CLOSE.length();
+        }
+        return new MailTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    /**
+     * Дописывает результат в out; literals всегда на один длиннее variables.
+     */
+    public void render(Map<String, ?> model, StringBuilder out) {
+        out.ensureCapacity(out.length() + literalLength + variables.length * 16);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            Object value = model.get(variables[i]);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+        out.append(literals[variables.length]);
+    }
+}
@@ -0,0 +1,141 @@
+package notificationservice.template;
+
+import notificationservice.dto.OperationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Шаблоны писем из classpath:mail-templates. Файл {операция}[_{язык}].txt начинается
+ * с заголовков «subject:» и «summary:», после пустой строки идёт тело письма. Шаблон
+ * компилируется при первом обращении к паре операция/язык и дальше берётся из кэша;
+ * для языка без своего файла используется файл без суффикса. В модели письма одна переменная —
+ * email адресата; шаблон digest получает ещё operations.
+ */
+@Component
+public class MailTemplates {
+
+    private static final String LOCATION = "mail-templates/";
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final int MAX_POOLED_CAPACITY = 16 * 1024;
+
+    private final Locale defaultLocale;
+    private final Map<String, Compiled> cache = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<StringBuilder> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public MailTemplates(@Value("${notification.mail.locale:ru}") Locale defaultLocale) {
+        this.defaultLocale = defaultLocale;
+    }
+
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    public RenderedMail render(OperationType operation, Locale locale, Map<String, ?> model) {
+        Compiled template = template(operation.name().toLowerCase(Locale.ROOT), locale);
+        return new RenderedMail(render(template.subject, model), render(template.body, model));
+    }
+
+    /**
+     * Письмо о нескольких операциях: тело шаблона digest получает переменную operations —
+     * краткие summary операций через запятую.
+     */
+    public RenderedMail renderDigest(List<OperationType> operations, Locale locale, Map<String, ?> model) {
+        StringBuilder summary = borrow();
+        try {
+            for (OperationType operation : operations) {
+                if (!summary.isEmpty()) {
+                    summary.append(", ");
+                }
+                template(operation.name().toLowerCase(Locale.ROOT), locale).summary.render(model, summary);
+            }
+            Map<String, Object> digestModel = new HashMap<>(model);
+            digestModel.put("operations", summary.toString());
+            Compiled digest = template("digest", locale);
+            return new RenderedMail(render(digest.subject, digestModel), render(digest.body, digestModel));
+        } finally {
+            release(summary);
+        }
+    }
+
+    private String render(MailTemplate template, Map<String, ?> model) {
+        StringBuilder buffer = borrow();
+        try {
+            template.render(model, buffer);
+            return buffer.toString();
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private Compiled template(String name, Locale locale) {
+        Locale effective = locale != null ? locale : defaultLocale;
+        return cache.computeIfAbsent(name + '_' + effective.getLanguage(), key -> load(name, effective));
+    }
+
+    private Compiled load(String name, Locale locale) {
+        Resource resource = new ClassPathResource(LOCATION + name + '_' + locale.getLanguage() + ".txt");
+        if (!resource.exists()) {
+            resource = new ClassPathResource(LOCATION + name + ".txt");
+        }
+        try {
+            return Compiled.parse(resource.getContentAsString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не найден шаблон письма " + name + " для " + locale, e);
+        }
+    }
+
+    private StringBuilder borrow() {
+        StringBuilder buffer = buffers.poll();
+        if (buffer == null) {
+            return new StringBuilder(256);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    private void release(StringBuilder buffer) {
+        if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        if (pooled.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.setLength(0);
+        buffers.offer(buffer);
+    }
+
+    private record Compiled(MailTemplate subject, MailTemplate summary, MailTemplate body) {
+
+        static Compiled parse(String source) {
+            String text = source.replace("\r\n", "\n");
+            int bodyStart = text.indexOf("\n\n");
+            String headers = bodyStart < 0 ? text : text.substring(0, bodyStart);
+            String body = bodyStart < 0 ? "" : text.substring(bodyStart + 2).stripTrailing();
+            String subject = "";
+            String summary = "";
+            for (String line : headers.split("\n")) {
+                if (line.startsWith("subject:")) {
+                    subject = line.substring("subject:".length()).strip();
+                } else if (line.startsWith("summary:")) {
+                    summary = line.substring("summary:".length()).strip();
+                }
+            }
+            return new Compiled(MailTemplate.compile(subject), MailTemplate.compile(summary), MailTemplate.compile(body));
+        }
+    }
+}
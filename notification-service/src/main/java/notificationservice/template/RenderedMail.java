@@ -0,0 +1,4 @@
+package notificationservice.template;
+
+public record RenderedMail(String subject, String body) {
+}
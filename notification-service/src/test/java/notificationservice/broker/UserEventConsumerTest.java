@@ -0,0 +1,135 @@
+package notificationservice.broker;
+
+import notificationservice.config.DedupProperties;
+import notificationservice.config.DigestProperties;
+import notificationservice.config.KafkaConfigProperties;
+import notificationservice.dedup.EventDeduplicator;
+import notificationservice.dedup.FileProcessedEventStore;
+import notificationservice.dto.OperationType;
+import notificationservice.dto.UserEvent;
+import notificationservice.mail.PooledMailTransport;
+import notificationservice.template.MailTemplates;
+import notificationservice.service.MailDispatcher;
+import notificationservice.service.NotificationDigest;
+import notificationservice.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailSendException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserEventConsumerTest {
+
+    private final MailDispatcher mailDispatcher = mock(MailDispatcher.class);
+    private final UserService userService = new UserService(mock(PooledMailTransport.class), new MailTemplates(Locale.forLanguageTag("ru")));
+    private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    private FileProcessedEventStore store;
+    private EventDeduplicator eventDeduplicator;
+    private UserEventConsumer consumer;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) {
+        store = new FileProcessedEventStore(dir, 100);
+        eventDeduplicator = new EventDeduplicator(new DedupProperties(), store);
+        DigestProperties digestProperties = new DigestProperties();
+        digestProperties.setWindow(Duration.ZERO);
+        NotificationDigest digest = new NotificationDigest(mailDispatcher, userService, eventDeduplicator, digestProperties);
+        consumer = new UserEventConsumer(digest, new KafkaConfigProperties(), eventDeduplicator);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void consume_dispatchesWholeBatchThenAcknowledges() {
+        when(mailDispatcher.dispatchMessages(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        consume(Arrays.asList(
+                event(OperationType.CREATE, 1L, "a@example.com"),
+                event(OperationType.DELETE, 2L, "b@example.com"),
+                event(OperationType.CREATE, 3L, " "),
+                null
+        ));
+
+        verify(mailDispatcher).dispatchMessages(List.of(
+                userService.buildMessage("a@example.com", OperationType.CREATE),
+                userService.buildMessage("b@example.com", OperationType.DELETE)));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void consume_eventsForSameRecipient_areMergedWithinBatch() {
+        when(mailDispatcher.dispatchMessages(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        consume(List.of(
+                event(OperationType.CREATE, 1L, "a@example.com"),
+                new UserEvent(OperationType.UPDATE, 1L, "a@example.com", 11L, null)
+        ));
+
+        verify(mailDispatcher).dispatchMessages(List.of(
+                userService.buildDigestMessage("a@example.com", List.of(OperationType.CREATE, OperationType.UPDATE))));
+    }
+
+    @Test
+    void consume_failedSend_doesNotAcknowledge() {
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SMTP недоступен")));
+
+        assertThatThrownBy(() -> consume(List.of(event(OperationType.CREATE, 1L, "a@example.com"))))
+                .isInstanceOf(MailSendException.class);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void consume_redeliveredEvents_areSentOnce() {
+        when(mailDispatcher.dispatchMessages(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        UserEvent created = event(OperationType.CREATE, 1L, "a@example.com");
+        UserEvent deleted = event(OperationType.DELETE, 2L, "b@example.com");
+
+        consume(List.of(created));
+        consume(List.of(created, deleted, deleted));
+
+        verify(mailDispatcher).dispatchMessages(List.of(userService.buildMessage("a@example.com", OperationType.CREATE)));
+        verify(mailDispatcher).dispatchMessages(List.of(userService.buildMessage("b@example.com", OperationType.DELETE)));
+        verify(acknowledgment, times(2)).acknowledge();
+    }
+
+    @Test
+    void consume_failedSend_isRetriedOnRedelivery() {
+        UserEvent created = event(OperationType.CREATE, 1L, "a@example.com");
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SMTP недоступен")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThatThrownBy(() -> consume(List.of(created)))
+                .isInstanceOf(MailSendException.class);
+        consume(List.of(created));
+
+        verify(mailDispatcher, times(2)).dispatchMessages(List.of(userService.buildMessage("a@example.com", OperationType.CREATE)));
+    }
+
+    private static UserEvent event(OperationType operation, Long userId, String email) {
+        return new UserEvent(operation, userId, email, userId * 10, Instant.parse("2026-01-01T00:00:00Z"));
+    }
+
+    /** Все события тестовой пачки приходят из партиции 0. */
+    private void consume(List<UserEvent> events) {
+        consumer.consume(events, Collections.nCopies(events.size(), 0), acknowledgment);
+    }
+}
@@ -0,0 +1,56 @@
+package notificationservice.broker;
+
+import notificationservice.dto.OperationType;
+import notificationservice.dto.UserEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserEventDeserializerTest {
+
+    private final UserEventDeserializer deserializer = new UserEventDeserializer();
+
+    @Test
+    void deserialize_binaryEvent() {
+        byte[] bytes = {0x00, 0x02, 0x02, 0x01, (byte) 0xD8, 0x04, 0x01, 0x05, 'a', '@', 'b', '.', 'c', 0x01, 0x0E, 0x01, (byte) 0xD0, 0x0F};
+
+        assertThat(deserializer.deserialize("user-events", bytes))
+                .isEqualTo(new UserEvent(OperationType.DELETE, 300L, "a@b.c", 7L, Instant.ofEpochMilli(1000)));
+    }
+
+    @Test
+    void deserialize_versionOneEvent_hasNoEventId() {
+        byte[] bytes = {0x00, 0x01, 0x02, 0x01, (byte) 0xD8, 0x04, 0x01, 0x05, 'a', '@', 'b', '.', 'c'};
+
+        assertThat(deserializer.deserialize("user-events", bytes))
+                .isEqualTo(new UserEvent(OperationType.DELETE, 300L, "a@b.c", null, null));
+    }
+
+    @Test
+    void deserialize_legacyJsonEvent() {
+        byte[] json = "{\"operation\":\"CREATE\",\"userId\":7,\"email\":\"x@example.com\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(deserializer.deserialize("user-events", json))
+                .isEqualTo(new UserEvent(OperationType.CREATE, 7L, "x@example.com", null, null));
+    }
+
+    @Test
+    void deserialize_unknownOperationCode_leavesOperationEmpty() {
+        byte[] bytes = {0x00, 0x01, 0x07, 0x01, 0x02, 0x00};
+
+        assertThat(deserializer.deserialize("user-events", bytes).getOperation()).isNull();
+    }
+
+    @Test
+    void deserialize_truncatedEvent_fails() {
+        byte[] bytes = {0x00, 0x01, 0x00, 0x01};
+
+        assertThatThrownBy(() -> deserializer.deserialize("user-events", bytes))
+                .isInstanceOf(SerializationException.class);
+    }
+}
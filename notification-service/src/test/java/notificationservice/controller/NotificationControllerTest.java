@@ -1,37 +1,61 @@
 package notificationservice.controller;
 
 import notificationservice.dto.OperationType;
-import notificationservice.service.UserService;
+import notificationservice.service.DeliveryTracker;
+import notificationservice.service.MailDispatcher;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(NotificationController.class)
+@Import(DeliveryTracker.class)
 public class NotificationControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
-    private UserService userService;
+    private MailDispatcher mailDispatcher;
 
     @Test
     public void testSendNotification() throws Exception {
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        when(mailDispatcher.dispatch("test@example.com", OperationType.CREATE, null)).thenReturn(delivery);
         String emailJson = "{\"email\":\"test@example.com\",\"operation\":\"CREATE\"}";
 
-        mockMvc.perform(post("/api/notifications/send")
+        MvcResult result = mockMvc.perform(post("/api/notifications/send")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(emailJson))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", startsWith("http://localhost/api/notifications/")))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andReturn();
+
+        verify(mailDispatcher).dispatch("test@example.com", OperationType.CREATE, null);
+        String location = result.getResponse().getHeader("Location");
+        delivery.complete(null);
+        mockMvc.perform(get(location))
                 .andExpect(status().isOk())
-                .andExpect(content().string("Email отправлен"));
+                .andExpect(jsonPath("$.status").value("SENT"));
+    }
 
-        verify(userService).sendEmail("test@example.com", OperationType.CREATE);
+    @Test
+    public void testUnknownTrackingId() throws Exception {
+        mockMvc.perform(get("/api/notifications/{trackingId}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
     }
 }
@@ -0,0 +1,180 @@
+package notificationservice.dedup;
+
+import notificationservice.config.DedupProperties;
+import notificationservice.dto.OperationType;
+import notificationservice.dto.UserEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventDeduplicatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void processedEvents_surviveRestart() throws Exception {
+        FileProcessedEventStore store = new FileProcessedEventStore(dir, 100);
+        EventDeduplicator deduplicator = new EventDeduplicator(properties(100), store);
+        deduplicator.markProcessed(deduplicator.filterNew(0, List.of(event(1), event(2))));
+        store.close();
+        // Недописанная при падении запись
+        Files.write(store.path(0), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        FileProcessedEventStore reopened = new FileProcessedEventStore(dir, 100);
+        EventDeduplicator restarted = new EventDeduplicator(properties(100), reopened);
+
+        assertThat(restarted.filterNew(0, List.of(event(1), event(2), event(3)))).containsExactly(event(3));
+        assertThat(Files.size(reopened.path(0))).isEqualTo(2 * Long.BYTES);
+        reopened.close();
+    }
+
+    @Test
+    void journal_isCompactedToWindow() {
+        FileProcessedEventStore store = new FileProcessedEventStore(dir, 10);
+        EventDeduplicator deduplicator = new EventDeduplicator(properties(10), store);
+        for (long id = 1; id <= 25; id++) {
+            deduplicator.markProcessed(deduplicator.filterNew(0, List.of(event(id))));
+        }
+
+        assertThat(store.path(0).toFile().length()).isLessThanOrEqualTo(2 * 10 * Long.BYTES);
+        assertThat(new EventDeduplicator(properties(10), store).filterNew(0, List.of(event(25), event(16), event(1))))
+                .containsExactly(event(1));
+        store.close();
+    }
+
+    @Test
+    void eventsWithoutId_areNeverDropped() {
+        EventDeduplicator deduplicator = new EventDeduplicator(properties(10), new InMemoryStore());
+        UserEvent legacy = new UserEvent(OperationType.CREATE, 1L, "a@example.com", null, null);
+        deduplicator.markProcessed(deduplicator.filterNew(0, List.of(legacy)));
+
+        assertThat(deduplicator.filterNew(0, List.of(legacy, legacy))).hasSize(2);
+    }
+
+    @Test
+    void partitions_keepSeparateWindows() {
+        InMemoryStore store = new InMemoryStore();
+        EventDeduplicator deduplicator = new EventDeduplicator(properties(10), store);
+
+        deduplicator.markProcessed(deduplicator.filterNew(0, List.of(event(1))));
+        deduplicator.markProcessed(deduplicator.filterNew(1, List.of(event(2))));
+
+        assertThat(store.ids).containsEntry(0, List.of(1L)).containsEntry(1, List.of(2L));
+        assertThat(deduplicator.filterNew(0, List.of(event(1), event(2)))).containsExactly(event(2));
+    }
+
+    @Test
+    void partitionHandoff_newOwnerSkipsEventsSentByPreviousOwner() {
+        InMemoryStore shared = new InMemoryStore();
+        EventDeduplicator first = new EventDeduplicator(properties(100), shared);
+        EventDeduplicator second = new EventDeduplicator(properties(100), shared);
+        // Второй экземпляр уже владел партицией раньше и помнит её старое окно
+        second.markProcessed(second.filterNew(3, List.of(event(1))));
+        second.release(List.of(3));
+
+        // Первый отправил письма, но подтвердить пачку не успел: партиция ушла при ребалансе
+        first.markProcessed(first.filterNew(3, List.of(event(2), event(3))));
+        first.release(List.of(3));
+
+        assertThat(second.filterNew(3, List.of(event(1), event(2), event(3), event(4)))).containsExactly(event(4));
+    }
+
+    @Test
+    void revokedPartition_eventsMarkedLate_areNotRecordedByFormerOwner() {
+        InMemoryStore shared = new InMemoryStore();
+        EventDeduplicator deduplicator = new EventDeduplicator(properties(100), shared);
+        List<UserEvent> fresh = deduplicator.filterNew(0, List.of(event(1)));
+
+        deduplicator.release(List.of(0));
+        deduplicator.markProcessed(fresh);
+
+        assertThat(shared.ids).doesNotContainKey(0);
+    }
+
+    @Test
+    void slowWindowLoad_doesNotBlockOtherPartitions() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        InMemoryStore store = new InMemoryStore() {
+            @Override
+            public List<Long> load(int partition, int limit) {
+                if (partition == 0) {
+                    loadStarted.countDown();
+                    awaitQuietly(releaseLoad);
+                }
+                return super.load(partition, limit);
+            }
+        };
+        EventDeduplicator deduplicator = new EventDeduplicator(properties(10), store);
+        CompletableFuture<List<UserEvent>> slow =
+                CompletableFuture.supplyAsync(() -> deduplicator.filterNew(0, List.of(event(1))));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<List<UserEvent>> other =
+                CompletableFuture.supplyAsync(() -> deduplicator.filterNew(1, List.of(event(2))));
+
+        assertThat(other.get(5, TimeUnit.SECONDS)).containsExactly(event(2));
+        assertThat(slow).isNotDone();
+        releaseLoad.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).containsExactly(event(1));
+    }
+
+    @Test
+    void bloomFilter_keepsFalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        LongStream.range(0, 10_000).forEach(filter::put);
+
+        long falsePositives = LongStream.range(10_000, 110_000).filter(filter::mightContain).count();
+
+        assertThat(LongStream.range(0, 10_000).allMatch(filter::mightContain)).isTrue();
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    private static DedupProperties properties(int windowSize) {
+        DedupProperties properties = new DedupProperties();
+        properties.setWindowSize(windowSize);
+        return properties;
+    }
+
+    private static UserEvent event(long eventId) {
+        return new UserEvent(OperationType.CREATE, eventId, "user" + eventId + "@example.com", eventId, null);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Общее хранилище двух экземпляров сервиса. */
+    private static class InMemoryStore implements ProcessedEventStore {
+        private final Map<Integer, List<Long>> ids = new HashMap<>();
+
+        @Override
+        public List<Long> load(int partition, int limit) {
+            List<Long> stored = ids.getOrDefault(partition, List.of());
+            return new ArrayList<>(stored.subList(Math.max(0, stored.size() - limit), stored.size()));
+        }
+
+        @Override
+        public void append(int partition, List<Long> eventIds) {
+            ids.computeIfAbsent(partition, p -> new ArrayList<>()).addAll(eventIds);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package notificationservice.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EmbeddedKafka(partitions = 3, topics = KafkaProcessedEventStoreTest.TOPIC)
+class KafkaProcessedEventStoreTest {
+
+    static final String TOPIC = "user-events-processed";
+
+    @Test
+    void load_onAnotherInstance_returnsTailOfPartition(EmbeddedKafkaBroker broker) {
+        try (KafkaProcessedEventStore previousOwner = store(broker); KafkaProcessedEventStore newOwner = store(broker)) {
+            previousOwner.append(1, List.of(1L, 2L, 3L));
+            previousOwner.append(1, List.of(4L, 5L));
+            previousOwner.append(0, List.of(100L));
+
+            assertThat(newOwner.load(1, 3)).containsExactly(3L, 4L, 5L);
+            assertThat(newOwner.load(0, 10)).containsExactly(100L);
+        }
+    }
+
+    @Test
+    void load_readsOnlyTailRecords(EmbeddedKafkaBroker broker) {
+        try (KafkaProcessedEventStore previousOwner = store(broker); KafkaProcessedEventStore newOwner = store(broker)) {
+            for (long id = 1; id <= 20; id++) {
+                previousOwner.append(2, List.of(id));
+            }
+            previousOwner.append(2, List.of(21L, 22L));
+
+            assertThat(newOwner.load(2, 3)).containsExactly(20L, 21L, 22L);
+            assertThat(newOwner.load(2, 1)).containsExactly(22L);
+        }
+    }
+
+    private static KafkaProcessedEventStore store(EmbeddedKafkaBroker broker) {
+        return new KafkaProcessedEventStore(broker.getBrokersAsString(), TOPIC, Duration.ofSeconds(30));
+    }
+}
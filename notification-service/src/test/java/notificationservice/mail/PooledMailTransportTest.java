@@ -0,0 +1,113 @@
+package notificationservice.mail;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import notificationservice.config.MailPoolProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledMailTransportTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("sender@example.com", "sender", "secret"))
+            .withPerMethodLifecycle(true);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PooledMailTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setUsername("sender");
+        mailSender.setPassword("secret");
+        mailSender.getJavaMailProperties().put("mail.smtp.auth", "true");
+
+        MailPoolProperties properties = new MailPoolProperties();
+        properties.setSize(2);
+        properties.setMaxMessagesPerConnection(50);
+        transport = new PooledMailTransport(mailSender, properties);
+        transport.bindTo(registry);
+    }
+
+    @Test
+    void send_concurrentMessages_reuseBoundedConnections() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CompletableFuture<?>[] sends = IntStream.range(0, 40)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> transport.send(message("user" + i + "@example.com")), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(sends).join();
+        executor.shutdown();
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(40);
+        assertThat(registry.get("mail.pool.connections.opened").counter().count()).isLessThanOrEqualTo(2);
+        assertThat(registry.get("mail.send.latency").timer().count()).isEqualTo(40);
+        assertThat(transport.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void send_batch_usesSingleConnectionAndRotatesAfterLimit() {
+        List<SimpleMailMessage> batch = IntStream.range(0, 120)
+                .mapToObj(i -> message("bulk" + i + "@example.com"))
+                .toList();
+
+        transport.send(batch);
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(120);
+        assertThat(registry.get("mail.pool.connections.opened").counter().count()).isEqualTo(3);
+        assertThat(transport.getOpenConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void send_batchWithBadAddress_deliversTheRestAndReportsOnlyTheBadMessage() {
+        SimpleMailMessage bad = message("not an address@");
+        List<SimpleMailMessage> batch = List.of(message("first@example.com"), bad, message("last@example.com"));
+
+        assertThatThrownBy(() -> transport.send(batch))
+                .isInstanceOfSatisfying(MailSendException.class, e -> {
+                    assertThat(e.getFailedMessages()).containsOnlyKeys(bad);
+                    assertThat(MailFailures.isPermanent(e.getFailedMessages().get(bad))).isTrue();
+                });
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        assertThat(transport.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void send_serverDown_failsEveryMessageAsTransient() {
+        greenMail.stop();
+        List<SimpleMailMessage> batch = List.of(message("first@example.com"), message("last@example.com"));
+
+        assertThatThrownBy(() -> transport.send(batch))
+                .isInstanceOfSatisfying(MailSendException.class, e -> {
+                    assertThat(e.getFailedMessages()).containsOnlyKeys(batch.toArray());
+                    assertThat(e.getFailedMessages().values()).noneMatch(MailFailures::isPermanent);
+                });
+        assertThat(registry.get("mail.pool.connections.opened").counter().count()).isZero();
+    }
+
+    private static SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("sender@example.com");
+        message.setTo(to);
+        message.setSubject("Уведомление от сервиса");
+        message.setText("Здравствуйте!");
+        return message;
+    }
+}
@@ -0,0 +1,117 @@
+package notificationservice.service;
+
+import notificationservice.dto.OperationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MailDispatcherTest {
+
+    private final UserService userService = mock(UserService.class);
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void apiMessages_overtakeQueuedBulkMessages() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        when(userService.buildMessage(anyString(), any(), any())).thenAnswer(invocation -> message(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            List<SimpleMailMessage> messages = invocation.getArgument(0);
+            messages.forEach(message -> sent.add(message.getTo()[0]));
+            firstStarted.countDown();
+            release.await();
+            return null;
+        }).when(userService).sendEmails(anyList());
+        dispatcher = new MailDispatcher(userService, 1, 1, 1000, 1000);
+
+        CompletableFuture<Void> bulk = dispatcher.dispatchMessages(List.of(message("bulk-1"), message("bulk-2"), message("bulk-3")));
+        assertThat(firstStarted.await(2, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> api = dispatcher.dispatch("api", OperationType.CREATE, null);
+        release.countDown();
+
+        CompletableFuture.allOf(bulk, api).get(2, TimeUnit.SECONDS);
+        assertThat(sent).containsExactly("bulk-1", "api", "bulk-2", "bulk-3");
+    }
+
+    @Test
+    void rateLimit_spacesOutSendsBeyondBurst() throws Exception {
+        dispatcher = new MailDispatcher(userService, 4, 1, 20, 2);
+
+        long start = System.nanoTime();
+        dispatcher.dispatchMessages(List.of(message("a"), message("b"), message("c"), message("d"))).get(2, TimeUnit.SECONDS);
+
+        // Два письма из запаса сразу, ещё два — по 50 мс каждое
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(90);
+        verify(userService, times(4)).sendEmails(anyList());
+    }
+
+    @Test
+    void apiMessage_doesNotWaitForTokensOfWholeBulkChunk() throws Exception {
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        when(userService.buildMessage(anyString(), any(), any())).thenAnswer(invocation -> message(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            List<SimpleMailMessage> messages = invocation.getArgument(0);
+            sent.add(messages.get(0).getTo()[0]);
+            return null;
+        }).when(userService).sendEmails(anyList());
+        // Один жетон в запасе, дальше по жетону в 100 мс: кусок из 10 писем набирает жетоны ~900 мс
+        dispatcher = new MailDispatcher(userService, 4, 10, 10, 1);
+        List<SimpleMailMessage> bulkMessages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bulkMessages.add(message("bulk-" + i));
+        }
+
+        CompletableFuture<Void> bulk = dispatcher.dispatchMessages(bulkMessages);
+        Thread.sleep(50);
+        long start = System.nanoTime();
+        dispatcher.dispatch("api", OperationType.CREATE, null).get(2, TimeUnit.SECONDS);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+        bulk.get(3, TimeUnit.SECONDS);
+        assertThat(sent).containsExactly("api", "bulk-0");
+    }
+
+    @Test
+    void dispatchMessages_failedChunk_reportsOnlyItsMessages() {
+        SimpleMailMessage failed = message("b");
+        doAnswer(invocation -> {
+            List<SimpleMailMessage> messages = invocation.getArgument(0);
+            if (messages.contains(failed)) {
+                throw new MailSendException("Таймаут SMTP");
+            }
+            return null;
+        }).when(userService).sendEmails(anyList());
+        dispatcher = new MailDispatcher(userService, 4, 1, 1000, 1000);
+
+        CompletableFuture<Void> result = dispatcher.dispatchMessages(List.of(message("a"), failed, message("c")));
+
+        assertThatThrownBy(result::join)
+                .hasCauseInstanceOf(MailSendException.class)
+                .satisfies(e -> assertThat(((MailSendException) e.getCause()).getFailedMessages()).containsOnlyKeys(failed));
+    }
+
+    private static SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        return message;
+    }
+}
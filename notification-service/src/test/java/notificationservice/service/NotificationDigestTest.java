@@ -0,0 +1,206 @@
+package notificationservice.service;
+
+import notificationservice.config.DedupProperties;
+import notificationservice.config.DigestProperties;
+import notificationservice.dedup.EventDeduplicator;
+import notificationservice.dedup.FileProcessedEventStore;
+import notificationservice.dto.OperationType;
+import notificationservice.dto.UserEvent;
+import notificationservice.mail.PooledMailTransport;
+import notificationservice.template.MailTemplates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class NotificationDigestTest {
+
+    private static final long WINDOW = 200;
+
+    private final MailDispatcher mailDispatcher = mock(MailDispatcher.class);
+    private final UserService userService = new UserService(mock(PooledMailTransport.class), new MailTemplates(Locale.forLanguageTag("ru")));
+    private final Acknowledgment first = mock(Acknowledgment.class);
+    private final Acknowledgment second = mock(Acknowledgment.class);
+    private final AtomicLong now = new AtomicLong(1_000);
+    private FileProcessedEventStore store;
+    private EventDeduplicator eventDeduplicator;
+    private NotificationDigest digest;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) {
+        store = new FileProcessedEventStore(dir, 100);
+        eventDeduplicator = new EventDeduplicator(new DedupProperties(), store);
+        DigestProperties digestProperties = new DigestProperties();
+        digestProperties.setWindow(Duration.ofMillis(WINDOW));
+        digestProperties.setMaxAttempts(3);
+        // Окна закрывает только явный flushDue() при переводе часов — без фонового потока
+        digest = new NotificationDigest(mailDispatcher, userService, eventDeduplicator, digestProperties, now::get, false);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        digest.destroy();
+        store.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_eventsInsideWindow_becomeOneMailPerRecipient() {
+        when(mailDispatcher.dispatchMessages(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        digest.submit(eventDeduplicator.filterNew(0, List.of(event(1, OperationType.CREATE, "a@example.com"),
+                event(2, OperationType.UPDATE, "a@example.com"))), first);
+        now.addAndGet(WINDOW - 1);
+        digest.submit(eventDeduplicator.filterNew(0, List.of(event(3, OperationType.UPDATE, "a@example.com"),
+                event(4, OperationType.DELETE, "a@example.com"), event(5, OperationType.CREATE, "b@example.com"))), second);
+        digest.flushDue();
+        verifyNoInteractions(mailDispatcher);
+
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+
+        ArgumentCaptor<List<SimpleMailMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mailDispatcher).dispatchMessages(captor.capture());
+        assertThat(captor.getValue()).extracting(SimpleMailMessage::getText).containsExactly(
+                "Здравствуйте! С вашим аккаунтом a@example.com произошло: аккаунт создан, данные аккаунта изменены, аккаунт удалён.",
+                "Здравствуйте! Ваш аккаунт b@example.com на сайте был успешно создан.");
+        InOrder inOrder = inOrder(first, second);
+        inOrder.verify(first).acknowledge();
+        inOrder.verify(second).acknowledge();
+        assertThat(eventDeduplicator.filterNew(0, List.of(event(4, OperationType.DELETE, "a@example.com")))).isEmpty();
+    }
+
+    @Test
+    void submit_failedSend_keepsBatchUnacknowledgedUntilRetrySucceeds() {
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SMTP недоступен")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        digest.submit(List.of(event(1, OperationType.CREATE, "a@example.com")), first);
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        digest.flushDue();
+
+        verify(mailDispatcher).dispatchMessages(anyList());
+        verify(first, never()).acknowledge();
+
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+
+        verify(mailDispatcher, times(2)).dispatchMessages(anyList());
+        verify(first).acknowledge();
+    }
+
+    @Test
+    void flushDue_partialFailure_retriesOnlyUndeliveredMails() {
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenAnswer(invocation -> failFor(invocation.getArgument(0), "b@example.com", new MailSendException("Таймаут SMTP")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        digest.submit(List.of(event(1, OperationType.CREATE, "a@example.com"), event(2, OperationType.CREATE, "b@example.com")), first);
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        verify(first, never()).acknowledge();
+
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+
+        verify(mailDispatcher).dispatchMessages(argThat(messages -> messages.size() == 1
+                && messages.get(0).getTo()[0].equals("b@example.com")));
+        verify(first).acknowledge();
+    }
+
+    @Test
+    void flushDue_permanentFailure_dropsMailAndReleasesLaterBatches() {
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenAnswer(invocation -> failFor(invocation.getArgument(0), "bad@example.com", new MailParseException("Некорректный адрес")));
+
+        digest.submit(eventDeduplicator.filterNew(0, List.of(event(1, OperationType.CREATE, "bad@example.com"))), first);
+        digest.submit(eventDeduplicator.filterNew(0, List.of(event(2, OperationType.CREATE, "a@example.com"))), second);
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        now.addAndGet(WINDOW * 10);
+        digest.flushDue();
+
+        verify(mailDispatcher).dispatchMessages(anyList());
+        InOrder inOrder = inOrder(first, second);
+        inOrder.verify(first).acknowledge();
+        inOrder.verify(second).acknowledge();
+        assertThat(eventDeduplicator.filterNew(0, List.of(event(1, OperationType.CREATE, "bad@example.com")))).isEmpty();
+    }
+
+    @Test
+    void flushDue_transientFailure_isDroppedAfterMaxAttempts() {
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SMTP недоступен")));
+
+        digest.submit(List.of(event(1, OperationType.CREATE, "a@example.com")), first);
+        // Повторы через окно, затем через два окна
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        verify(first, never()).acknowledge();
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        now.addAndGet(WINDOW * 100);
+        digest.flushDue();
+
+        verify(mailDispatcher, times(3)).dispatchMessages(anyList());
+        verify(first).acknowledge();
+    }
+
+    @Test
+    void flushAll_revokedPartition_leavesUndeliveredMailToNewOwner() {
+        Acknowledgment third = mock(Acknowledgment.class);
+        when(mailDispatcher.dispatchMessages(anyList()))
+                .thenAnswer(invocation -> failFor(invocation.getArgument(0), "a@example.com", new MailSendException("Таймаут SMTP")));
+
+        digest.submit(eventDeduplicator.filterNew(3, List.of(event(1, OperationType.CREATE, "a@example.com"))), first);
+        digest.submit(eventDeduplicator.filterNew(0, List.of(event(2, OperationType.CREATE, "b@example.com"))), second);
+        digest.flushAll(List.of(3));
+        now.addAndGet(WINDOW * 100);
+        digest.flushDue();
+
+        verify(mailDispatcher).dispatchMessages(anyList());
+        // Подтверждение второй пачки закоммитило бы и смещение отозванной партиции
+        verify(first, never()).acknowledge();
+        verify(second, never()).acknowledge();
+
+        digest.submit(eventDeduplicator.filterNew(0, List.of(event(3, OperationType.CREATE, "b@example.com"))), third);
+        now.addAndGet(WINDOW);
+        digest.flushDue();
+        verify(third).acknowledge();
+    }
+
+    private static CompletableFuture<Void> failFor(List<SimpleMailMessage> messages, String email, Exception failure) {
+        return messages.stream()
+                .filter(message -> message.getTo()[0].equals(email))
+                .findFirst()
+                .map(message -> CompletableFuture.<Void>failedFuture(new MailSendException(Map.of(message, failure))))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
+
+    private static UserEvent event(long eventId, OperationType operation, String email) {
+        return new UserEvent(operation, eventId, email, eventId, null);
+    }
+}
@@ -1,28 +1,31 @@
 package notificationservice.service;
 
 import notificationservice.dto.OperationType;
+import notificationservice.mail.PooledMailTransport;
+import notificationservice.template.MailTemplates;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.Locale;
 
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class UserServiceTest {
 
-    private final JavaMailSender mailSender = mock(JavaMailSender.class);
-    private final UserService userService = new UserService(mailSender);
+    private final PooledMailTransport mailTransport = mock(PooledMailTransport.class);
+    private final UserService userService = new UserService(mailTransport, new MailTemplates(Locale.forLanguageTag("ru")));
 
     @Test
     void testSendEmail() {
         userService.sendEmail("user@example.com", OperationType.CREATE);
 
         ArgumentCaptor<SimpleMailMessage> captor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(captor.capture());
+        verify(mailTransport).send(captor.capture());
 
         SimpleMailMessage message = captor.getValue();
         assertThat(message.getTo()).containsExactly("user@example.com");
-        assertThat(message.getText()).isEqualTo("Здравствуйте! Ваш аккаунт на сайте был успешно создан.");
+        assertThat(message.getText()).isEqualTo("Здравствуйте! Ваш аккаунт user@example.com на сайте был успешно создан.");
     }
 }
@@ -0,0 +1,39 @@
+package notificationservice.template;
+
+import notificationservice.dto.OperationType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailTemplatesTest {
+
+    private final MailTemplates templates = new MailTemplates(Locale.forLanguageTag("ru"));
+
+    @Test
+    void compile_substitutesVariablesAndDropsMissingOnes() {
+        StringBuilder out = new StringBuilder("> ");
+        MailTemplate.compile("Hi {{ name }}, {{email}}{{missing}}! {{").render(Map.of("name", "Ann", "email", "a@b.c"), out);
+
+        assertThat(out).hasToString("> Hi Ann, a@b.c! {{");
+    }
+
+    @Test
+    void render_usesLocaleFileAndFallsBackToDefault() {
+        RenderedMail english = templates.render(OperationType.CREATE, Locale.ENGLISH, Map.of("email", "a@b.c"));
+        RenderedMail german = templates.render(OperationType.CREATE, Locale.GERMAN, Map.of("email", "a@b.c"));
+
+        assertThat(english).isEqualTo(new RenderedMail("Service notification", "Hello! Your account a@b.c has been created."));
+        assertThat(german.body()).isEqualTo("Здравствуйте! Ваш аккаунт a@b.c на сайте был успешно создан.");
+    }
+
+    @Test
+    void renderDigest_joinsOperationSummaries() {
+        RenderedMail digest = templates.renderDigest(List.of(OperationType.CREATE, OperationType.DELETE), null, Map.of("email", "a@b.c"));
+
+        assertThat(digest.body()).isEqualTo("Здравствуйте! С вашим аккаунтом a@b.c произошло: аккаунт создан, аккаунт удалён.");
+    }
+}
@@ -0,0 +1,144 @@
+package myapp.events;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Компактный двоичный формат UserEvent. Поля в фиксированном порядке:
+ * <pre>
+ * magic      1 байт  0x00 — JSON не может начинаться с нулевого байта, по нему потребитель отличает формат
+ * version    1 байт  версия схемы
+ * operation  1 байт  код операции: CREATE 0, UPDATE 1, DELETE 2 (коды не зависят от порядка констант enum)
+ * userId     0 — null, 1 — далее zigzag varint
+ * email      0 — null, 1 — далее varint длины и байты UTF-8
+ * eventId    0 — null, 1 — далее zigzag varint (с версии 2)
+ * occurredAt 0 — null, 1 — далее zigzag varint миллисекунд epoch (с версии 2)
+ * </pre>
+ * Новые поля добавляются только в конец с увеличением версии, чтобы старые потребители читали известный им префикс.
+ * Сервисы держат собственные классы UserEvent и переводят их в {@link Fields}; операция передаётся именем константы.
+ */
+public final class UserEventCodec {
+
+    public static final byte MAGIC = 0x00;
+    public static final byte VERSION = 2;
+
+    private static final String[] OPERATIONS = {"CREATE", "UPDATE", "DELETE"};
+
+    private UserEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Fields event) {
+        int operation = Arrays.asList(OPERATIONS).indexOf(event.operation());
+        if (operation < 0) {
+            throw new IllegalArgumentException("Событие без операции или с неизвестной операцией: " + event);
+        }
+        byte[] email = event.email() == null ? null : event.email().getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[3 + 3 * (1 + 10) + 1 + 5 + (email == null ? 0 : email.length)];
+        int pos = 0;
+        buffer[pos++] = MAGIC;
+        buffer[pos++] = VERSION;
+        buffer[pos++] = (byte) operation;
+        pos = writeOptionalLong(buffer, pos, event.userId());
+        if (email == null) {
+            buffer[pos++] = 0;
+        } else {
+            buffer[pos++] = 1;
+            pos = writeVarLong(buffer, pos, email.length);
+            System.arraycopy(email, 0, buffer, pos, email.length);
+            pos += email.length;
+        }
+        pos = writeOptionalLong(buffer, pos, event.eventId());
+        pos = writeOptionalLong(buffer, pos, event.occurredAtMillis());
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    /**
+     * @throws IllegalArgumentException если данные не в двоичном формате или повреждены
+     */
+    public static Fields decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Нет magic-байта двоичного формата");
+        }
+        try {
+            return decode(ByteBuffer.wrap(data));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Событие обрезано", e);
+        }
+    }
+
+    private static Fields decode(ByteBuffer buffer) {
+        buffer.get();
+        byte version = buffer.get();
+        if (version < 1) {
+            throw new IllegalArgumentException("Неизвестная версия схемы события: " + version);
+        }
+        // Неизвестные коды (операции более новых версий) дают null, такие события отбрасываются
+        int code = buffer.get();
+        String operation = code >= 0 && code < OPERATIONS.length ? OPERATIONS[code] : null;
+        Long userId = readOptionalLong(buffer);
+        String email = null;
+        if (buffer.get() != 0) {
+            int length = (int) readVarLong(buffer);
+            email = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        Long eventId = null;
+        Long occurredAtMillis = null;
+        if (version >= 2) {
+            eventId = readOptionalLong(buffer);
+            occurredAtMillis = readOptionalLong(buffer);
+        }
+        // Поля более новых версий схемы идут после известных и пропускаются
+        return new Fields(operation, userId, email, eventId, occurredAtMillis);
+    }
+
+    private static int writeOptionalLong(byte[] buffer, int pos, Long value) {
+        if (value == null) {
+            buffer[pos++] = 0;
+            return pos;
+        }
+        buffer[pos++] = 1;
+        return writeVarLong(buffer, pos, (value << 1) ^ (value >> 63));
+    }
+
+    private static int writeVarLong(byte[] buffer, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static Long readOptionalLong(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        long zigzag = readVarLong(buffer);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинный varint");
+    }
+
+    /**
+     * Поля события в том виде, в каком они лежат в сообщении.
+     */
+    public record Fields(String operation, Long userId, String email, Long eventId, Long occurredAtMillis) {
+    }
+}
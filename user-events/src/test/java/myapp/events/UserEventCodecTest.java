@@ -0,0 +1,57 @@
+package myapp.events;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Эталонные байты формата. Продюсеры и потребители всех сервисов кодируют через {@link UserEventCodec},
+ * поэтому изменение раскладки ломает этот тест, а не совместимость сервисов в проде.
+ */
+class UserEventCodecTest {
+
+    private static final byte[] VERSION_TWO = {0x00, 0x02, 0x02, 0x01, (byte) 0xD8, 0x04, 0x01, 0x05, 'a', '@', 'b', '.', 'c',
+            0x01, 0x0E, 0x01, (byte) 0xD0, 0x0F};
+    private static final byte[] VERSION_ONE = {0x00, 0x01, 0x02, 0x01, (byte) 0xD8, 0x04, 0x01, 0x05, 'a', '@', 'b', '.', 'c'};
+
+    @Test
+    void encode_writesSchemaVersionTwoLayout() {
+        assertThat(UserEventCodec.encode(new UserEventCodec.Fields("DELETE", 300L, "a@b.c", 7L, 1000L)))
+                .containsExactly(VERSION_TWO);
+        assertThat(UserEventCodec.encode(new UserEventCodec.Fields("CREATE", null, null, null, null)))
+                .containsExactly(0x00, 0x02, 0x00, 0x00, 0x00, 0x00, 0x00);
+    }
+
+    @Test
+    void decode_readsVersionTwoAndVersionOne() {
+        assertThat(UserEventCodec.decode(VERSION_TWO))
+                .isEqualTo(new UserEventCodec.Fields("DELETE", 300L, "a@b.c", 7L, 1000L));
+        assertThat(UserEventCodec.decode(VERSION_ONE))
+                .isEqualTo(new UserEventCodec.Fields("DELETE", 300L, "a@b.c", null, null));
+    }
+
+    @Test
+    void decode_roundTripsNegativeAndLargeValues() {
+        UserEventCodec.Fields event = new UserEventCodec.Fields("UPDATE", Long.MAX_VALUE, "пользователь@пример.рф", -5L, Long.MIN_VALUE);
+
+        assertThat(UserEventCodec.decode(UserEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void decode_unknownOperationCode_leavesOperationEmpty_andSkipsNewerFields() {
+        byte[] bytes = {0x00, 0x03, 0x07, 0x01, 0x02, 0x00, 0x00, 0x00, 0x01, 0x02};
+
+        assertThat(UserEventCodec.decode(bytes)).isEqualTo(new UserEventCodec.Fields(null, 1L, null, null, null));
+    }
+
+    @Test
+    void decode_truncatedOrNonBinary_fails() {
+        assertThatThrownBy(() -> UserEventCodec.decode(new byte[]{0x00, 0x01, 0x00, 0x01}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> UserEventCodec.decode(new byte[]{'{', '}'}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> UserEventCodec.encode(new UserEventCodec.Fields(null, 1L, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
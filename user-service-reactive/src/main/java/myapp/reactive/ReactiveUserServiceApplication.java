@@ -0,0 +1,17 @@
+package myapp.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.support.WebStack;
+
+@SpringBootApplication
+@EnableDiscoveryClient
+@EnableHypermediaSupport(type = EnableHypermediaSupport.HypermediaType.HAL, stacks = WebStack.WEBFLUX)
+public class ReactiveUserServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveUserServiceApplication.class, args);
+    }
+}
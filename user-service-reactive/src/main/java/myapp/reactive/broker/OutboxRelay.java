@@ -0,0 +1,120 @@
+package myapp.reactive.broker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import myapp.reactive.dto.UserEvent;
+import myapp.reactive.model.OutboxEvent;
+import myapp.reactive.repository.OutboxEventRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Реактивный вариант реле outbox: та же схема, что и в user-service (advisory-блокировка,
+ * порядок по position, ключ — id пользователя), но пачка отправляется через KafkaSender без
+ * блокировки потоков. Строки удаляются только после подтверждения всех записей брокером,
+ * иначе транзакция откатывается.
+ */
+@Component
+public class OutboxRelay implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    /** Тот же ключ advisory-блокировки, что и у реле user-service: оба пишут в одну таблицу. */
+    static final long RELAY_LOCK_KEY = 0x7573657220L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaSender<String, UserEvent> kafkaSender;
+    private final TransactionalOperator transactionalOperator;
+    private final Counter published;
+
+    @Value("${app.kafka.topic-name:user-events}")
+    private String topicName;
+
+    @Value("${app.outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.outbox.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private Disposable subscription;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaSender<String, UserEvent> kafkaSender,
+                       TransactionalOperator transactionalOperator,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaSender = kafkaSender;
+        this.transactionalOperator = transactionalOperator;
+        this.published = Counter.builder("users.outbox.published")
+                .description("События, доставленные из outbox в Kafka")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.interval(Duration.ofMillis(pollIntervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> relay(), 1)
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Mono<Integer> relay() {
+        return relayBatch()
+                .expand(sent -> sent == batchSize ? relayBatch() : Mono.empty())
+                .reduce(0, Integer::sum)
+                .onErrorResume(e -> {
+                    log.error("Ошибка отправки событий из outbox, повтор при следующем опросе", e);
+                    return Mono.just(0);
+                });
+    }
+
+    private Mono<Integer> relayBatch() {
+        return outboxEventRepository.tryLockRelay(RELAY_LOCK_KEY)
+                .flatMap(locked -> locked
+                        ? outboxEventRepository.lockNextBatch(batchSize).collectList().flatMap(this::send)
+                        : Mono.just(0))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Integer> send(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            return Mono.just(0);
+        }
+        Flux<SenderRecord<String, UserEvent, Long>> records = Flux.fromIterable(batch)
+                .map(event -> SenderRecord.create(new ProducerRecord<>(topicName, event.partitionKey(), event.toUserEvent()), event.getId()));
+        return kafkaSender.send(records)
+                .then()
+                .timeout(Duration.ofMillis(sendTimeoutMs))
+                .then(outboxEventRepository.deleteByIds(batch.stream().map(OutboxEvent::getId).toList()))
+                .doOnSuccess(deleted -> {
+                    published.increment(batch.size());
+                    log.debug("Из outbox отправлено {} событий", batch.size());
+                })
+                .thenReturn(batch.size());
+    }
+}
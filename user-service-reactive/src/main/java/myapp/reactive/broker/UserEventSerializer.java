@@ -0,0 +1,26 @@
+package myapp.reactive.broker;
+
+import myapp.events.UserEventCodec;
+import myapp.reactive.dto.UserEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Двоичный формат UserEvent ({@link UserEventCodec}) — тот же код, что у продюсера user-service,
+ * поэтому оба сервиса пишут в топик одинаковые байты.
+ */
+public class UserEventSerializer implements Serializer<UserEvent> {
+
+    @Override
+    public byte[] serialize(String topic, UserEvent event) {
+        if (event == null) {
+            return null;
+        }
+        if (event.getOperation() == null) {
+            throw new SerializationException("Событие без операции: " + event);
+        }
+        return UserEventCodec.encode(new UserEventCodec.Fields(event.getOperation().name(), event.getUserId(),
+                event.getEmail(), event.getEventId(),
+                event.getOccurredAt() == null ? null : event.getOccurredAt().toEpochMilli()));
+    }
+}
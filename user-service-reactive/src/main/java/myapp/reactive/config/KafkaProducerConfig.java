@@ -0,0 +1,44 @@
+package myapp.reactive.config;
+
+import myapp.reactive.broker.UserEventSerializer;
+import myapp.reactive.dto.UserEvent;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${app.kafka.topic-name:user-events}")
+    private String topicName;
+
+    @Value("${app.kafka.partitions:1}")
+    private int partitions;
+
+    @Value("${app.kafka.replication-factor:1}")
+    private short replicationFactor;
+
+    @Bean
+    public NewTopic userEventsTopic() {
+        return new NewTopic(topicName, partitions, replicationFactor);
+    }
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, UserEvent> userEventSender(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // spring.kafka.producer.value-serializer позволяет вернуть JsonSerializer на время отката
+        props.putIfAbsent(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return KafkaSender.create(SenderOptions.create(props));
+    }
+}
@@ -0,0 +1,102 @@
+package myapp.reactive.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.RequiredArgsConstructor;
+import myapp.reactive.dto.UserDto;
+import myapp.reactive.dto.UserResource;
+import myapp.reactive.service.UserService;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@Validated
+public class UserController {
+
+    private final UserService userService;
+
+    @GetMapping
+    public Mono<ResponseEntity<CollectionModel<EntityModel<UserResource>>>> getAllUsers(
+            @RequestParam(defaultValue = "0") @PositiveOrZero Long after,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int size,
+            ServerHttpRequest request) {
+        return userService.getAllUsers(after, size)
+                .map(user -> toModel(user, request))
+                .collectList()
+                .map(users -> {
+                    CollectionModel<EntityModel<UserResource>> collectionModel = CollectionModel.of(users);
+                    collectionModel.add(Link.of(pageUri(request, after, size)).withSelfRel());
+                    if (users.size() == size) {
+                        Long lastId = users.get(users.size() - 1).getContent().getId();
+                        collectionModel.add(Link.of(pageUri(request, lastId, size)).withRel(IanaLinkRelations.NEXT));
+                    }
+                    return ResponseEntity.ok(collectionModel);
+                });
+    }
+
+    /**
+     * Поток NDJSON с обратным давлением: строки читаются из базы не быстрее, чем клиент их забирает.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserDto> streamUsers() {
+        return userService.streamAllUsers();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<EntityModel<UserResource>>> getUser(@PathVariable Long id, ServerHttpRequest request) {
+        return userService.getUserById(id)
+                .map(user -> ResponseEntity.ok(toModel(user, request)));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<EntityModel<UserResource>>> createUser(@Valid @RequestBody UserDto userDto,
+                                                                      ServerHttpRequest request) {
+        return userService.createUser(userDto)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(toModel(created, request)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<EntityModel<UserResource>>> updateUser(@PathVariable Long id,
+                                                                      @Valid @RequestBody UserDto userDto,
+                                                                      ServerHttpRequest request) {
+        return userService.updateUser(id, userDto)
+                .map(updated -> ResponseEntity.ok(toModel(updated, request)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable Long id) {
+        return userService.deleteUser(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+
+    private static EntityModel<UserResource> toModel(UserResource user, ServerHttpRequest request) {
+        return EntityModel.of(user, List.of(Link.of(usersUri(request).path("/{id}").build(user.getId()).toString())));
+    }
+
+    private static String pageUri(ServerHttpRequest request, Long after, int size) {
+        return usersUri(request).queryParam("after", after).queryParam("size", size).toUriString();
+    }
+
+    private static UriComponentsBuilder usersUri(ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(request.getURI())
+                .replacePath(request.getPath().contextPath().value() + "/api/users")
+                .replaceQuery(null);
+    }
+}
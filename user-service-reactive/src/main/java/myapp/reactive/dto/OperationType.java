@@ -0,0 +1,7 @@
+package myapp.reactive.dto;
+
+public enum OperationType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
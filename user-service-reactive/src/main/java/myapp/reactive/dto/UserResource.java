@@ -0,0 +1,19 @@
+package myapp.reactive.dto;
+
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+@Relation(collectionRelation = "users", itemRelation = "user")
+public class UserResource extends RepresentationModel<UserResource> {
+    private Long id;
+    private String name;
+    private String email;
+    private Integer age;
+}
+
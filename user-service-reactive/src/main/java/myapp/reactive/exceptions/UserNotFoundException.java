@@ -0,0 +1,7 @@
+package myapp.reactive.exceptions;
+
+public class UserNotFoundException extends RuntimeException {
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package myapp.reactive.exceptions;
+
+public class ValidationException extends RuntimeException {
+    public ValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package myapp.reactive.mapper;
+
+import myapp.reactive.dto.UserDto;
+import myapp.reactive.dto.UserResource;
+import myapp.reactive.model.User;
+
+public class UserMapper {
+    public static UserDto toDto(User user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .age(user.getAge())
+                .build();
+    }
+
+    public static UserResource toResource(User user) {
+        return UserResource.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .age(user.getAge())
+                .build();
+    }
+}
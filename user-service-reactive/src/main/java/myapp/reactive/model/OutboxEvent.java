@@ -0,0 +1,41 @@
+package myapp.reactive.model;
+
+import lombok.*;
+import myapp.reactive.dto.OperationType;
+import myapp.reactive.dto.UserEvent;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Table("user_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    private Long id;
+
+    private OperationType operation;
+
+    @Column("user_id")
+    private Long userId;
+
+    private String email;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    /**
+     * Ключ записи в Kafka: события одного пользователя должны попадать в одну партицию.
+     */
+    public String partitionKey() {
+        return userId != null ? userId.toString() : email;
+    }
+
+    public UserEvent toUserEvent() {
+        return new UserEvent(operation, userId, email, id, createdAt);
+    }
+}
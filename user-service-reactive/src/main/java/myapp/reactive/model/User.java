@@ -0,0 +1,21 @@
+package myapp.reactive.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("users")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class User {
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String email;
+
+    private Integer age;
+}
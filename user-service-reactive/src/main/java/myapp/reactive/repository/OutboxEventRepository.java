@@ -0,0 +1,28 @@
+package myapp.reactive.repository;
+
+import myapp.reactive.model.OutboxEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface OutboxEventRepository extends ReactiveCrudRepository<OutboxEvent, Long> {
+
+    @Modifying
+    @Query("INSERT INTO user_outbox (id, operation, user_id, email, created_at) "
+            + "VALUES (nextval('user_outbox_seq'), :operation, :userId, :email, now())")
+    Mono<Integer> append(String operation, Long userId, String email);
+
+    @Query("SELECT * FROM user_outbox ORDER BY position LIMIT :limit FOR UPDATE SKIP LOCKED")
+    Flux<OutboxEvent> lockNextBatch(int limit);
+
+    @Query("SELECT pg_try_advisory_xact_lock(:key)")
+    Mono<Boolean> tryLockRelay(long key);
+
+    @Modifying
+    @Query("DELETE FROM user_outbox WHERE id IN (:ids)")
+    Mono<Integer> deleteByIds(Collection<Long> ids);
+}
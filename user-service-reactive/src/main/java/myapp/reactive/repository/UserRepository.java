@@ -0,0 +1,24 @@
+package myapp.reactive.repository;
+
+import myapp.reactive.model.User;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+
+    @Query("SELECT id, name, email, age FROM users WHERE id > :afterId ORDER BY id LIMIT :size")
+    Flux<User> findPage(Long afterId, int size);
+
+    @Query("INSERT INTO users (id, name, email, age) VALUES (nextval('users_seq'), :name, :email, :age) "
+            + "RETURNING id, name, email, age")
+    Mono<User> insert(String name, String email, Integer age);
+
+    @Query("UPDATE users SET name = COALESCE(:name, name), email = COALESCE(:email, email), age = COALESCE(:age, age), version = version + 1 "
+            + "WHERE id = :id RETURNING id, name, email, age")
+    Mono<User> updatePartial(Long id, String name, String email, Integer age);
+
+    @Query("DELETE FROM users WHERE id = :id RETURNING id, name, email, age")
+    Mono<User> deleteReturning(Long id);
+}
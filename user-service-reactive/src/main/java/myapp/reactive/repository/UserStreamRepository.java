@@ -0,0 +1,38 @@
+package myapp.reactive.repository;
+
+import myapp.reactive.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public class UserStreamRepository {
+
+    private static final String SELECT_ALL = "SELECT id, name, email, age FROM users ORDER BY id";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public UserStreamRepository(DatabaseClient databaseClient,
+                                @Value("${app.users.stream-fetch-size:500}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Строки читаются порталом PostgreSQL порциями по fetchSize: следующая порция
+     * запрашивается только когда подписчик (HTTP-ответ) готов принять данные.
+     */
+    public Flux<User> findAll() {
+        return databaseClient.sql(SELECT_ALL)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> User.builder()
+                        .id(row.get("id", Long.class))
+                        .name(row.get("name", String.class))
+                        .email(row.get("email", String.class))
+                        .age(row.get("age", Integer.class))
+                        .build())
+                .all();
+    }
+}
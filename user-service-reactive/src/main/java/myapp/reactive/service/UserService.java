@@ -0,0 +1,98 @@
+package myapp.reactive.service;
+
+import io.r2dbc.spi.R2dbcException;
+import lombok.RequiredArgsConstructor;
+import myapp.reactive.dto.OperationType;
+import myapp.reactive.dto.UserDto;
+import myapp.reactive.dto.UserResource;
+import myapp.reactive.exceptions.UserNotFoundException;
+import myapp.reactive.exceptions.ValidationException;
+import myapp.reactive.mapper.UserMapper;
+import myapp.reactive.model.User;
+import myapp.reactive.repository.OutboxEventRepository;
+import myapp.reactive.repository.UserRepository;
+import myapp.reactive.repository.UserStreamRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class UserService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
+    /** SQLSTATE unique_violation в PostgreSQL */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final UserRepository userRepository;
+    private final UserStreamRepository userStreamRepository;
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Transactional(readOnly = true)
+    public Flux<UserResource> getAllUsers(Long afterId, int size) {
+        return userRepository.findPage(afterId, size).map(UserMapper::toResource);
+    }
+
+    @Transactional(readOnly = true)
+    public Flux<UserDto> streamAllUsers() {
+        return userStreamRepository.findAll().map(UserMapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public Mono<UserResource> getUserById(Long id) {
+        return userRepository.findById(id)
+                .map(UserMapper::toResource)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("Пользователь не найден")));
+    }
+
+    public Mono<UserResource> createUser(UserDto dto) {
+        // Уникальность email проверяет ограничение в базе, без отдельного запроса перед вставкой
+        return userRepository.insert(dto.getName(), dto.getEmail(), dto.getAge())
+                .onErrorMap(UserService::isUniqueViolation, e -> new ValidationException("Email уже занят"))
+                .doOnNext(saved -> log.info("Успешно создан пользователь: {}", saved.getEmail()))
+                .flatMap(saved -> enqueueUserEvent(OperationType.CREATE, saved))
+                .map(UserMapper::toResource);
+    }
+
+    public Mono<UserResource> updateUser(Long id, UserDto dto) {
+        return userRepository.updatePartial(id, dto.getName(), dto.getEmail(), dto.getAge())
+                .onErrorMap(UserService::isUniqueViolation, e -> new ValidationException("Email уже занят"))
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("Пользователь с ID " + id + " не найден")))
+                .doOnNext(updated -> log.info("Пользователь с ID {} обновлён", id))
+                .flatMap(updated -> enqueueUserEvent(OperationType.UPDATE, updated))
+                .map(UserMapper::toResource);
+    }
+
+    public Mono<Void> deleteUser(Long id) {
+        return userRepository.deleteReturning(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("Пользователь не найден")))
+                .doOnNext(deleted -> log.info("Пользователь с ID {} удалён", id))
+                .flatMap(deleted -> enqueueUserEvent(OperationType.DELETE, deleted))
+                .then();
+    }
+
+    /**
+     * Spring переводит нарушение уникальности в DuplicateKeyException, но без перевода
+     * (или в обёртке) приходит R2dbcDataIntegrityViolationException с SQLSTATE 23505.
+     */
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateKeyException
+                    || cause instanceof R2dbcException r2dbc && UNIQUE_VIOLATION.equals(r2dbc.getSqlState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<User> enqueueUserEvent(OperationType operation, User user) {
+        return outboxEventRepository.append(operation.name(), user.getId(), user.getEmail())
+                .thenReturn(user);
+    }
+}
@@ -0,0 +1,103 @@
+package myapp.reactive.controller;
+
+import myapp.reactive.dto.UserDto;
+import myapp.reactive.dto.UserResource;
+import myapp.reactive.exceptions.UserNotFoundException;
+import myapp.reactive.exceptions.ValidationException;
+import myapp.reactive.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(UserController.class)
+class UserControllerTest {
+
+    private static final Long USER_ID = 1L;
+    private static final String USER_NAME_1 = "Test";
+    private static final String USER_NAME_2 = "DopTest";
+    private static final String USER_EMAIL_1 = "Test@example.com";
+    private static final String USER_EMAIL_2 = "DopTest@example.com";
+    private static final int USER_AGE_1 = 25;
+    private static final int USER_AGE_2 = 30;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private UserService userService;
+
+    @Test
+    void getAllUsers_fullPage_returnsNextLink() {
+        when(userService.getAllUsers(0L, 2)).thenReturn(Flux.just(
+                UserResource.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).build(),
+                UserResource.builder().id(2L).name(USER_NAME_2).email(USER_EMAIL_2).age(USER_AGE_2).build()));
+
+        webTestClient.get().uri("/api/users?size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded.users.length()").isEqualTo(2)
+                .jsonPath("$._embedded.users[0]._links.self.href").value(href -> assertThat((String) href).endsWith("/api/users/1"))
+                .jsonPath("$._links.next.href").value(href -> assertThat((String) href).endsWith("/api/users?after=2&size=2"));
+    }
+
+    @Test
+    void getAllUsers_sizeTooLarge_returnsBadRequest() {
+        webTestClient.get().uri("/api/users?size=5000")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void streamUsers_returnsNdjson() {
+        when(userService.streamAllUsers()).thenReturn(Flux.just(
+                UserDto.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).build(),
+                UserDto.builder().id(2L).name(USER_NAME_2).email(USER_EMAIL_2).age(USER_AGE_2).build()));
+
+        webTestClient.get().uri("/api/users/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(UserDto.class).hasSize(2);
+    }
+
+    @Test
+    void getUser_notFound_returns404() {
+        when(userService.getUserById(USER_ID)).thenReturn(Mono.error(new UserNotFoundException("Пользователь не найден")));
+
+        webTestClient.get().uri("/api/users/{id}", USER_ID)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void createUser_duplicateEmail_returnsBadRequest() {
+        when(userService.createUser(any())).thenReturn(Mono.error(new ValidationException("Email уже занят")));
+
+        webTestClient.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(UserDto.builder().name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Email уже занят");
+    }
+
+    @Test
+    void deleteUser_returnsNoContent() {
+        when(userService.deleteUser(USER_ID)).thenReturn(Mono.empty());
+
+        webTestClient.delete().uri("/api/users/{id}", USER_ID)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+}
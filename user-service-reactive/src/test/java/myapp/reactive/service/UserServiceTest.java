@@ -0,0 +1,63 @@
+package myapp.reactive.service;
+
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import myapp.reactive.dto.UserDto;
+import myapp.reactive.exceptions.ValidationException;
+import myapp.reactive.repository.OutboxEventRepository;
+import myapp.reactive.repository.UserRepository;
+import myapp.reactive.repository.UserStreamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserServiceTest {
+
+    private static final String EMAIL = "taken@example.com";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final UserService userService = new UserService(userRepository, mock(UserStreamRepository.class), outboxEventRepository);
+
+    @Test
+    void createUser_duplicateEmail_isValidationErrorWithoutPreCheck() {
+        when(userRepository.insert("Test", EMAIL, 25)).thenReturn(Mono.error(new DuplicateKeyException("users_email_key")));
+
+        StepVerifier.create(userService.createUser(UserDto.builder().name("Test").email(EMAIL).age(25).build()))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(ValidationException.class).hasMessage("Email уже занят"))
+                .verify();
+        verify(userRepository).insert("Test", EMAIL, 25);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    void updateUser_untranslatedUniqueViolation_isValidationError() {
+        R2dbcDataIntegrityViolationException violation =
+                new R2dbcDataIntegrityViolationException("duplicate key value", "23505");
+        when(userRepository.updatePartial(1L, null, EMAIL, null))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("update", violation)));
+
+        StepVerifier.create(userService.updateUser(1L, UserDto.builder().email(EMAIL).build()))
+                .expectError(ValidationException.class)
+                .verify();
+        verify(outboxEventRepository, never()).append(any(), any(), any());
+    }
+
+    @Test
+    void updateUser_otherIntegrityViolation_isNotMapped() {
+        when(userRepository.updatePartial(1L, null, null, -1))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("users_age_check",
+                        new R2dbcDataIntegrityViolationException("check", "23514"))));
+
+        StepVerifier.create(userService.updateUser(1L, UserDto.builder().age(-1).build()))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+}
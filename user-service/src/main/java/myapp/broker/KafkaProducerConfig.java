@@ -22,6 +22,12 @@ public class KafkaProducerConfig {
     @Value("${app.kafka.topic-name:user-events}")
     private String topicName;
 
+    @Value("${app.kafka.partitions:1}")
+    private int partitions;
+
+    @Value("${app.kafka.replication-factor:1}")
+    private short replicationFactor;
+
     @Bean
     public KafkaTemplate<String, UserEvent> kafkaTemplate(ProducerFactory<String, UserEvent> producerFactory) {
         return new KafkaTemplate<>(producerFactory);
@@ -36,6 +42,6 @@ public class KafkaProducerConfig {
 
     @Bean
     public NewTopic userEventsTopic() {
-        return new NewTopic(topicName, 1, (short) 1);
+        return new NewTopic(topicName, partitions, replicationFactor);
     }
 }
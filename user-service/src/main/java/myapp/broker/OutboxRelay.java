@@ -0,0 +1,101 @@
+package myapp.broker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import myapp.dto.UserEvent;
+import myapp.model.OutboxEvent;
+import myapp.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Переносит события из таблицы user_outbox в Kafka. Ключ записи — id пользователя, поэтому все события
+ * одного пользователя попадают в одну партицию и читаются в порядке position. Пачку публикует только
+ * реле, взявшее advisory-блокировку: параллельные реле с SKIP LOCKED могли бы переставить события одного
+ * пользователя. Строка удаляется только после подтверждения брокером, иначе транзакция откатывается
+ * и пачка уйдёт повторно.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    /** Ключ pg_try_advisory_xact_lock, общий для всех экземпляров user-service. */
+    static final long RELAY_LOCK_KEY = 0x7573657220L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+
+    @Value("${app.kafka.topic-name:user-events}")
+    private String topicName;
+
+    @Value("${app.outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, UserEvent> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.published = Counter.builder("users.outbox.published")
+                .description("События, доставленные из outbox в Kafka")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Ошибка отправки событий из outbox, повтор при следующем опросе", e);
+        }
+    }
+
+    private int relayBatch() {
+        if (!outboxEventRepository.tryLockRelay(RELAY_LOCK_KEY)) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        CompletableFuture<?>[] futures = batch.stream()
+                .map(event -> kafkaTemplate.send(topicName, event.partitionKey(), event.toUserEvent()))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Отправка событий прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Брокер не подтвердил пачку из " + batch.size() + " событий", e);
+        }
+
+        outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+        published.increment(batch.size());
+        log.debug("Из outbox отправлено {} событий", batch.size());
+        return batch.size();
+    }
+}
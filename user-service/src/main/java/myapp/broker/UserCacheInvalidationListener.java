@@ -0,0 +1,29 @@
+package myapp.broker;
+
+import lombok.RequiredArgsConstructor;
+import myapp.cache.UserCache;
+import myapp.dto.UserEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Каждая реплика читает user-events в собственной группе, поэтому получает все события
+ * и сбрасывает свои записи кэша независимо от того, какая реплика выполнила запись.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidationListener {
+
+    private final UserCache userCache;
+
+    @KafkaListener(topics = "${app.kafka.topic-name:user-events}",
+            groupId = "${app.cache.users.invalidation-group-prefix:user-service-cache}-${random.uuid}",
+            containerFactory = "userEventListenerContainerFactory")
+    public void onUserEvent(ConsumerRecord<String, UserEvent> record) {
+        UserEvent event = record.value();
+        if (event != null && event.getUserId() != null) {
+            userCache.invalidateFromEvent(event.getUserId(), record.timestamp());
+        }
+    }
+}
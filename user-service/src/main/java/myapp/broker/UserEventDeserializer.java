@@ -0,0 +1,50 @@
+package myapp.broker;
+
+import myapp.events.UserEventCodec;
+import myapp.dto.OperationType;
+import myapp.dto.UserEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.Instant;
+
+/**
+ * Обратная сторона UserEventSerializer для собственного слушателя инвалидации кэша; сообщения
+ * без нулевого magic-байта читаются как JSON, поэтому топик со старыми событиями дочитывается.
+ */
+public class UserEventDeserializer implements Deserializer<UserEvent> {
+
+    private final JsonDeserializer<UserEvent> jsonDeserializer = new JsonDeserializer<>(UserEvent.class, false);
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public UserEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (!UserEventCodec.isBinary(data)) {
+            return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+        }
+        UserEventCodec.Fields fields;
+        try {
+            fields = UserEventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Повреждённое событие пользователя в топике " + topic, e);
+        }
+        // Неизвестные операции более новых версий приходят как null, такие события отбрасываются
+        return new UserEvent(fields.operation() == null ? null : OperationType.valueOf(fields.operation()),
+                fields.userId(), fields.email(), fields.eventId(),
+                fields.occurredAtMillis() == null ? null : Instant.ofEpochMilli(fields.occurredAtMillis()));
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
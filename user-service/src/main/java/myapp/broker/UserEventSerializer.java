@@ -0,0 +1,25 @@
+package myapp.broker;
+
+import myapp.events.UserEventCodec;
+import myapp.dto.UserEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Пишет UserEvent компактным двоичным форматом {@link UserEventCodec}; схема описана там.
+ */
+public class UserEventSerializer implements Serializer<UserEvent> {
+
+    @Override
+    public byte[] serialize(String topic, UserEvent event) {
+        if (event == null) {
+            return null;
+        }
+        if (event.getOperation() == null) {
+            throw new SerializationException("Событие без операции: " + event);
+        }
+        return UserEventCodec.encode(new UserEventCodec.Fields(event.getOperation().name(), event.getUserId(),
+                event.getEmail(), event.getEventId(),
+                event.getOccurredAt() == null ? null : event.getOccurredAt().toEpochMilli()));
+    }
+}
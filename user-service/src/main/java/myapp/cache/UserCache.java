@@ -0,0 +1,133 @@
+package myapp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import myapp.config.UserCacheProperties;
+import myapp.dto.UserResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Кэш пользователей по id: Caffeine (W-TinyLFU) для найденных и отдельный короткоживущий кэш
+ * для отсутствующих id. Записи сбрасываются локально после коммита и по событиям из user-events
+ * от любой реплики.
+ * Промахи грузятся через {@link UserQueryFlights}, а не внутри Caffeine-вычисления: оно держит
+ * блокировку сегмента на всё время запроса к базе. Загруженное значение кладётся в кэш, только
+ * если за время загрузки этот id (точнее, его полоса из {@link #STRIPES}) не сбрасывался.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    static final int STRIPES = 64;
+
+    private final Cache<Long, UserResource> users;
+    private final Cache<Long, Boolean> missing;
+    private final UserQueryFlights flights;
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private Counter staleEvictions;
+    private Timer invalidationLag;
+
+    public UserCache(UserCacheProperties properties, UserQueryFlights flights) {
+        this.flights = flights;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(properties.getNegativeMaximumSize())
+                .expireAfterWrite(properties.getNegativeExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<UserResource> get(Long id, Function<Long, Optional<UserResource>> loader) {
+        if (missing.getIfPresent(id) != null) {
+            return Optional.empty();
+        }
+        UserResource cached = users.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return flights.byId(id, () -> {
+            long version = invalidations.get(stripe(id));
+            Optional<UserResource> user = loader.apply(id);
+            store(id, user, version);
+            return user;
+        });
+    }
+
+    public void invalidate(Long id) {
+        invalidations.incrementAndGet(stripe(id));
+        users.invalidate(id);
+        missing.invalidate(id);
+        flights.forget(id);
+    }
+
+    public void invalidateAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(id);
+            }
+        });
+    }
+
+    public void invalidateFromEvent(Long id, long eventTimestamp) {
+        invalidations.incrementAndGet(stripe(id));
+        boolean stale = users.asMap().remove(id) != null;
+        missing.invalidate(id);
+        flights.forget(id);
+        if (stale && staleEvictions != null) {
+            staleEvictions.increment();
+        }
+        if (invalidationLag != null && eventTimestamp > 0) {
+            invalidationLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - eventTimestamp)));
+        }
+    }
+
+    /**
+     * Проверка версии полосы идёт под блокировкой ключа в compute: сброс, начавшийся после неё,
+     * дождётся записи и удалит её.
+     */
+    private void store(Long id, Optional<UserResource> user, long version) {
+        int stripe = stripe(id);
+        if (user.isPresent()) {
+            users.asMap().compute(id, (key, current) -> invalidations.get(stripe) == version ? user.get() : current);
+        } else {
+            missing.asMap().compute(id, (key, current) -> invalidations.get(stripe) == version ? Boolean.TRUE : current);
+        }
+    }
+
+    private static int stripe(Long id) {
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, "users");
+        CaffeineCacheMetrics.monitor(registry, missing, "users-missing");
+        staleEvictions = Counter.builder("users.cache.stale.evictions")
+                .description("Записи кэша, сброшенные событием об изменении пользователя")
+                .register(registry);
+        invalidationLag = Timer.builder("users.cache.invalidation.lag")
+                .description("Задержка между записью события в Kafka и сбросом записи кэша")
+                .register(registry);
+    }
+}
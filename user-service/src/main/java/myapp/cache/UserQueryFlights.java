@@ -0,0 +1,74 @@
+package myapp.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import myapp.datasource.PrimaryPin;
+import myapp.dto.UserResource;
+import myapp.dto.UserSearchCriteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight для чтений пользователей: по id, страницы списка и поиска. Одновременные
+ * одинаковые запросы (промах кэша после истечения записи или деплоя) дают один запрос к базе.
+ * Запись сбрасывает идущие загрузки, чтобы читатель после коммита не получил результат,
+ * прочитанный до него. Клиент, закреплённый за primary после записи, не присоединяется
+ * к чужим загрузкам — они могли уйти на отстающую реплику.
+ */
+@Component
+public class UserQueryFlights implements MeterBinder {
+
+    private final SingleFlight<Long, Optional<UserResource>> byId = new SingleFlight<>();
+    private final SingleFlight<PageKey, List<UserResource>> pages = new SingleFlight<>();
+    private final SingleFlight<UserSearchCriteria, List<UserResource>> searches = new SingleFlight<>();
+
+    public Optional<UserResource> byId(Long id, Supplier<Optional<UserResource>> loader) {
+        return PrimaryPin.isPinned() ? loader.get() : byId.execute(id, loader);
+    }
+
+    public List<UserResource> page(Long afterId, int size, Supplier<List<UserResource>> loader) {
+        return PrimaryPin.isPinned() ? loader.get() : pages.execute(new PageKey(afterId, size), loader);
+    }
+
+    public List<UserResource> search(UserSearchCriteria criteria, Supplier<List<UserResource>> loader) {
+        return PrimaryPin.isPinned() ? loader.get() : searches.execute(criteria, loader);
+    }
+
+    /**
+     * Пользователь изменился: его карточка и любые списки, где он мог оказаться, грузятся заново.
+     */
+    public void forget(Long id) {
+        byId.forget(id);
+        pages.forgetAll();
+        searches.forgetAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map.of("by-id", byId, "page", pages, "search", searches).forEach((query, flight) -> {
+            FunctionCounter.builder("users.singleflight.calls", flight, SingleFlight::executedCount)
+                    .description("Чтения пользователей через single-flight: executed — запрос к базе, merged — склеен с идущим")
+                    .tag("query", query)
+                    .tag("result", "executed")
+                    .register(registry);
+            FunctionCounter.builder("users.singleflight.calls", flight, SingleFlight::mergedCount)
+                    .description("Чтения пользователей через single-flight: executed — запрос к базе, merged — склеен с идущим")
+                    .tag("query", query)
+                    .tag("result", "merged")
+                    .register(registry);
+            Gauge.builder("users.singleflight.inflight", flight, SingleFlight::inFlight)
+                    .description("Загрузки, к которым могут присоединиться новые запросы")
+                    .tag("query", query)
+                    .register(registry);
+        });
+    }
+
+    private record PageKey(Long afterId, int size) {
+    }
+}
@@ -0,0 +1,84 @@
+package myapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import myapp.datasource.PrimaryPinFilter;
+import myapp.datasource.ReplicaRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * app.datasource.routing.enabled=true: read-only транзакции уходят на реплики, записи — на primary.
+ * Пулы primary и реплик настраиваются общими spring.datasource.hikari.*, у каждого своё имя
+ * (user-primary, user-replica-N) и свои метрики hikaricp_* с тегом pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             DataSourceRoutingProperties routingProperties,
+                                                             Environment environment,
+                                                             MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = pool(environment, metrics, "user-primary");
+        primary.setJdbcUrl(dataSourceProperties.determineUrl());
+        primary.setUsername(dataSourceProperties.determineUsername());
+        primary.setPassword(dataSourceProperties.determinePassword());
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : routingProperties.getReplicas()) {
+            HikariDataSource pool = pool(environment, metrics, "user-replica-" + (replicas.size() + 1));
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+            if (replica.getMaximumPoolSize() != null) {
+                pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            }
+            pool.setReadOnly(true);
+            replicas.add(pool);
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas, routingProperties.getPrimaryPin(),
+                routingProperties.getPinCookieName(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<PrimaryPinFilter> primaryPinFilter(DataSourceRoutingProperties routingProperties) {
+        FilterRegistrationBean<PrimaryPinFilter> registration =
+                new FilterRegistrationBean<>(new PrimaryPinFilter(routingProperties.getPinCookieName()));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    private static HikariDataSource pool(Environment environment, MicrometerMetricsTrackerFactory metrics, String name) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(metrics);
+        return pool;
+    }
+}
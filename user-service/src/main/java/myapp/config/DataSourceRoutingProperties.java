@@ -0,0 +1,29 @@
+package myapp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingProperties {
+    private boolean enabled = false;
+    /** Реплики для read-only транзакций; пул каждой настраивается как spring.datasource.hikari */
+    private List<Replica> replicas = new ArrayList<>();
+    /** Сколько после записи клиент читает с primary, чтобы не увидеть отставшую реплику */
+    private Duration primaryPin = Duration.ofSeconds(5);
+    private String pinCookieName = "user-service-primary";
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private Integer maximumPoolSize;
+    }
+}
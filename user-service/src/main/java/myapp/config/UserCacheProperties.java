@@ -0,0 +1,17 @@
+package myapp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.cache.users")
+public class UserCacheProperties {
+    private long maximumSize = 100_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+    private long negativeMaximumSize = 10_000;
+    private Duration negativeExpireAfterWrite = Duration.ofSeconds(30);
+}
@@ -1,5 +1,7 @@
 package myapp.controller;
 
+import jakarta.validation.ConstraintViolationException;
+import myapp.exceptions.PreconditionFailedException;
 import myapp.exceptions.UserNotFoundException;
 import myapp.exceptions.ValidationException;
 import org.springframework.http.HttpStatus;
@@ -20,4 +22,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleConstraintViolation(ConstraintViolationException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
 }
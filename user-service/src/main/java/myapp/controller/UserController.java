@@ -1,24 +1,48 @@
 package myapp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import myapp.dto.UserBatchItemResult;
+import myapp.dto.UserBatchRequest;
+import myapp.dto.UserImportResult;
 import myapp.dto.UserDto;
 import myapp.dto.UserResource;
+import myapp.dto.UserSearchCriteria;
+import myapp.dto.UserSearchCursor;
+import myapp.dto.UserSearchPage;
+import myapp.dto.UserSearchSort;
 import lombok.RequiredArgsConstructor;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import myapp.service.UserBatchService;
+import myapp.service.UserImportService;
 import myapp.service.UserService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @RestController
 @RequestMapping("/api/users")
@@ -27,31 +51,110 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 @Tag(name = "User Management", description = "API для управления пользователями")
 public class UserController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final UserService userService;
+    private final UserBatchService userBatchService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    @Operation(summary = "Получить всех пользователей")
-    public ResponseEntity<CollectionModel<EntityModel<UserResource>>> getAllUsers() {
-        List<UserResource> users = userService.getAllUsers();
+    @Operation(summary = "Получить пользователей постранично (keyset по id)")
+    public ResponseEntity<CollectionModel<EntityModel<UserResource>>> getAllUsers(
+            @RequestParam(defaultValue = "0") @PositiveOrZero Long after,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int size,
+            WebRequest request) {
+        List<UserResource> users = userService.getAllUsers(after, size);
+        String etag = UserETags.of(users);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        UserLinks links = UserLinks.forCurrentRequest();
         
-        List<EntityModel<UserResource>> userResources = users.stream()
-                .map(user -> EntityModel.of(user)
-                        .add(linkTo(methodOn(UserController.class).getUser(user.getId())).withSelfRel()))
-                .collect(Collectors.toList());
+        List<EntityModel<UserResource>> userResources = new ArrayList<>(users.size());
+        for (UserResource user : users) {
+            userResources.add(EntityModel.of(user, links.self(user.getId())));
+        }
         
         CollectionModel<EntityModel<UserResource>> collectionModel = CollectionModel.of(userResources);
-        collectionModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withSelfRel());
+        collectionModel.add(links.page(after, size));
+        if (users.size() == size) {
+            Long lastId = users.get(users.size() - 1).getId();
+            collectionModel.add(links.page(lastId, size, IanaLinkRelations.NEXT));
+        }
         
         return ResponseEntity.ok(collectionModel);
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Найти пользователей по префиксу имени, домену email и диапазону возраста")
+    public ResponseEntity<CollectionModel<EntityModel<UserResource>>> searchUsers(
+            @RequestParam(required = false) @Size(min = 1, max = 255) String name,
+            @RequestParam(required = false) @Size(min = 1, max = 255) String emailDomain,
+            @RequestParam(required = false) @Min(0) @Max(120) Integer minAge,
+            @RequestParam(required = false) @Min(0) @Max(120) Integer maxAge,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") @Pattern(regexp = "(?i)asc|desc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int size) {
+        UserSearchSort searchSort = UserSearchSort.parse(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        UserSearchCriteria criteria = UserSearchCriteria.builder()
+                .namePrefix(name)
+                .emailDomain(emailDomain)
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .sort(searchSort)
+                .descending(descending)
+                .after(cursor == null ? null : UserSearchCursor.decode(cursor, searchSort, descending))
+                .size(size)
+                .build();
+        UserSearchPage page = userService.searchUsers(criteria);
+        UserLinks links = UserLinks.forCurrentRequest();
+
+        List<EntityModel<UserResource>> userResources = new ArrayList<>(page.getUsers().size());
+        for (UserResource user : page.getUsers()) {
+            userResources.add(EntityModel.of(user, links.self(user.getId())));
+        }
+
+        CollectionModel<EntityModel<UserResource>> collectionModel = CollectionModel.of(userResources, Link.of(
+                ServletUriComponentsBuilder.fromCurrentRequest().toUriString()));
+        if (page.getNextCursor() != null) {
+            collectionModel.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString(), IanaLinkRelations.NEXT));
+        }
+        return ResponseEntity.ok(collectionModel);
+    }
+
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Выгрузить всех пользователей потоком NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            userService.streamAllUsers(user -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Получить пользователя по ID")
-    public ResponseEntity<EntityModel<UserResource>> getUser(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<UserResource>> getUser(@PathVariable Long id, WebRequest request) {
         UserResource user = userService.getUserById(id);
+        String etag = UserETags.of(user);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
         
-        EntityModel<UserResource> userResource = EntityModel.of(user)
-                .add(linkTo(methodOn(UserController.class).getUser(id)).withSelfRel());
+        EntityModel<UserResource> userResource = EntityModel.of(user, UserLinks.forCurrentRequest().self(id));
         
         return ResponseEntity.ok(userResource);
     }
@@ -61,21 +164,41 @@ public class UserController {
     public ResponseEntity<EntityModel<UserResource>> createUser(@Valid @RequestBody UserDto userDto) {
         UserResource created = userService.createUser(userDto);
         
-        EntityModel<UserResource> userResource = EntityModel.of(created)
-                .add(linkTo(methodOn(UserController.class).getUser(created.getId())).withSelfRel());
+        EntityModel<UserResource> userResource = EntityModel.of(created, UserLinks.forCurrentRequest().self(created.getId()));
         
-        return new ResponseEntity<>(userResource, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(UserETags.of(created)).body(userResource);
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Обновить пользователя")
-    public ResponseEntity<EntityModel<UserResource>> updateUser(@PathVariable Long id, @Valid @RequestBody UserDto userDto) {
-        UserResource updated = userService.updateUser(id, userDto);
+    @Operation(summary = "Обновить пользователя (с If-Match — только если версия не изменилась)")
+    public ResponseEntity<EntityModel<UserResource>> updateUser(@PathVariable Long id, @RequestBody UserDto userDto,
+                                                                @RequestHeader HttpHeaders headers) {
+        List<String> ifMatch = headers.getIfMatch();
+        UserResource updated = ifMatch.isEmpty()
+                ? userService.updateUser(id, userDto)
+                : userService.updateUser(id, userDto, UserETags.expectedVersion(ifMatch));
         
-        EntityModel<UserResource> userResource = EntityModel.of(updated)
-                .add(linkTo(methodOn(UserController.class).getUser(id)).withSelfRel());
+        EntityModel<UserResource> userResource = EntityModel.of(updated, UserLinks.forCurrentRequest().self(id));
         
-        return ResponseEntity.ok(userResource);
+        return ResponseEntity.ok().eTag(UserETags.of(updated)).body(userResource);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Пакетно создать, обновить и удалить пользователей")
+    public ResponseEntity<List<UserBatchItemResult>> batch(@Valid @RequestBody UserBatchRequest request) {
+        return ResponseEntity.ok(userBatchService.execute(request.getOperations()));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(summary = "Импортировать пользователей из CSV (name,email,age с заголовком) через COPY")
+    public ResponseEntity<UserImportResult> importCsv(InputStream body) {
+        return ResponseEntity.ok(userImportService.importCsv(body));
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    @Operation(summary = "Импортировать пользователей из NDJSON через COPY")
+    public ResponseEntity<UserImportResult> importNdjson(InputStream body) {
+        return ResponseEntity.ok(userImportService.importNdjson(body));
     }
 
     @DeleteMapping("/{id}")
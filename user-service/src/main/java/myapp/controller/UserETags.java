@@ -0,0 +1,71 @@
+package myapp.controller;
+
+import myapp.dto.UserResource;
+import myapp.exceptions.PreconditionFailedException;
+
+import java.util.List;
+
+/**
+ * Сильные ETag ресурсов пользователей. ETag карточки — версия строки, ETag страницы — свёртка
+ * пар (id, версия) её элементов: оба считаются без сериализации тела, поэтому на совпавший
+ * If-None-Match контроллер отвечает 304, не собирая HAL-модель.
+ */
+public final class UserETags {
+
+    private UserETags() {
+    }
+
+    /**
+     * ETag карточки или null, если версия неизвестна.
+     */
+    public static String of(UserResource user) {
+        return user.getVersion() == null ? null : quote(Long.toString(user.getVersion()));
+    }
+
+    /**
+     * ETag страницы или null, если версия хотя бы одного элемента неизвестна.
+     */
+    public static String of(List<UserResource> users) {
+        long hash = users.size();
+        for (UserResource user : users) {
+            if (user.getVersion() == null) {
+                return null;
+            }
+            hash = 31 * hash + mix(user.getId() * 0x9E3779B97F4A7C15L + user.getVersion());
+        }
+        return quote("p" + Long.toUnsignedString(mix(hash), 36));
+    }
+
+    /**
+     * Ожидаемая версия из If-Match: null для «*» (достаточно существования ресурса).
+     * Слабый или чужой ETag никогда не совпадает с версией строки.
+     */
+    public static Long expectedVersion(List<String> ifMatch) {
+        if (ifMatch.size() != 1) {
+            throw new PreconditionFailedException("If-Match должен содержать один ETag пользователя");
+        }
+        String tag = ifMatch.get(0).trim();
+        if ("*".equals(tag)) {
+            return null;
+        }
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new PreconditionFailedException("ETag " + tag + " не совпадает с текущей версией пользователя");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("ETag " + tag + " не совпадает с текущей версией пользователя");
+        }
+    }
+
+    private static String quote(String value) {
+        return '"' + value + '"';
+    }
+
+    /** Финализатор splitmix64: соседние id и версии дают далёкие значения */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,37 @@
+package myapp.controller;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * Ссылки на ресурсы пользователей. Базовый URI коллекции разрешается один раз на запрос
+ * (с учётом хоста и X-Forwarded-* заголовков), дальше id и параметры страницы дописываются
+ * строкой — без прокси methodOn и повторного поиска маппинга на каждый элемент.
+ */
+public final class UserLinks {
+
+    private final String usersUri;
+
+    private UserLinks(String usersUri) {
+        this.usersUri = usersUri;
+    }
+
+    public static UserLinks forCurrentRequest() {
+        return new UserLinks(linkTo(UserController.class).toUri().toString());
+    }
+
+    public Link self(Long id) {
+        return Link.of(usersUri + '/' + id);
+    }
+
+    public Link page(Long after, int size) {
+        return page(after, size, IanaLinkRelations.SELF);
+    }
+
+    public Link page(Long after, int size, LinkRelation relation) {
+        return Link.of(usersUri + "?after=" + after + "&size=" + size, relation);
+    }
+}
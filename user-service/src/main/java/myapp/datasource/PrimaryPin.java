@@ -0,0 +1,25 @@
+package myapp.datasource;
+
+/**
+ * Признак «читать с primary» для текущего потока: выставляется фильтром по cookie клиента,
+ * который недавно писал, и после коммита записи в рамках того же запроса.
+ */
+public final class PrimaryPin {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryPin() {
+    }
+
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+}
@@ -0,0 +1,133 @@
+package myapp.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Направляет read-only транзакции на реплики (по кругу), всё остальное — на primary.
+ * Ключ выбирается при первом обращении к соединению, поэтому снаружи нужен
+ * LazyConnectionDataSourceProxy: к этому моменту флаг readOnly транзакции уже выставлен.
+ * После коммита пишущей транзакции в HTTP-запросе клиент получает cookie и ещё
+ * primaryPin читает с primary — так он видит свою запись, даже если реплика отстаёт.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Duration primaryPin;
+    private final String pinCookieName;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration primaryPin,
+                                    String pinCookieName, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.primaryPin = primaryPin;
+        this.pinCookieName = pinCookieName;
+        this.primaryRoutes = routes(meterRegistry, PRIMARY);
+        this.replicaRoutes = routes(meterRegistry, "replica");
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(replicaKey(i), this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && !replicas.isEmpty() && !PrimaryPin.isPinned()) {
+            replicaRoutes.increment();
+            return replicaKey(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        }
+        if (!readOnly) {
+            pinAfterCommit();
+        }
+        primaryRoutes.increment();
+        return PRIMARY;
+    }
+
+    private void pinAfterCommit() {
+        // Чтение без транзакции (scope NOT_SUPPORTED) ничего не коммитит и не должно прикреплять клиента
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                PrimaryPin.pin();
+                HttpServletResponse response = attributes.getResponse();
+                if (response != null && !response.isCommitted()) {
+                    Cookie cookie = new Cookie(pinCookieName, String.valueOf(System.currentTimeMillis() + primaryPin.toMillis()));
+                    cookie.setMaxAge((int) Math.max(1, primaryPin.toSeconds()));
+                    cookie.setPath("/");
+                    cookie.setHttpOnly(true);
+                    response.addCookie(cookie);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+            }
+        });
+    }
+
+    public String getPinCookieName() {
+        return pinCookieName;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (DataSource replica : replicas) {
+            close(replica);
+        }
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    private static Counter routes(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("users.datasource.routes")
+                .description("Выбор источника данных для новых соединений")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package myapp.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchItem {
+
+    @NotNull(message = "Операция обязательна")
+    private OperationType operation;
+
+    private Long id;
+
+    private UserDto user;
+}
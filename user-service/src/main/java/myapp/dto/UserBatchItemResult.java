@@ -0,0 +1,29 @@
+package myapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchItemResult {
+    private int index;
+    private int status;
+    private Long id;
+    private String error;
+
+    public static UserBatchItemResult success(int index, int status, Long id) {
+        return new UserBatchItemResult(index, status, id, null);
+    }
+
+    public static UserBatchItemResult failure(int index, int status, Long id, String error) {
+        return new UserBatchItemResult(index, status, id, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
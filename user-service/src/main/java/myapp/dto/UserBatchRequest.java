@@ -0,0 +1,22 @@
+package myapp.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRequest {
+
+    public static final int MAX_OPERATIONS = 5000;
+
+    @NotEmpty(message = "Список операций не может быть пустым")
+    @Size(max = MAX_OPERATIONS, message = "Не более " + MAX_OPERATIONS + " операций за запрос")
+    private List<@Valid UserBatchItem> operations;
+}
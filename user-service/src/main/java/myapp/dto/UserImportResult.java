@@ -0,0 +1,16 @@
+package myapp.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserImportResult {
+    /** Строк прочитано из файла */
+    private long received;
+    /** Пользователей создано */
+    private long imported;
+    /** Строк пропущено: не прошли проверку или email уже занят */
+    private long skipped;
+}
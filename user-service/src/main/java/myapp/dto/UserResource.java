@@ -1,5 +1,6 @@
 package myapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.hateoas.server.core.Relation;
@@ -15,5 +16,9 @@ public class UserResource extends RepresentationModel<UserResource> {
     private String name;
     private String email;
     private Integer age;
+
+    /** Версия строки, из неё строится ETag; в теле ответа не отдаётся */
+    @JsonIgnore
+    private Long version;
 }
 
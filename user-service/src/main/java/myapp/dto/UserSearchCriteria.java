@@ -0,0 +1,19 @@
+package myapp.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSearchCriteria {
+    private String namePrefix;
+    private String emailDomain;
+    private Integer minAge;
+    private Integer maxAge;
+    @Builder.Default
+    private UserSearchSort sort = UserSearchSort.ID;
+    private boolean descending;
+    private UserSearchCursor after;
+    private int size;
+}
@@ -0,0 +1,54 @@
+package myapp.dto;
+
+import lombok.*;
+import myapp.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации поиска: значение ключа сортировки и id последней строки страницы.
+ * Клиенту отдаётся непрозрачной base64url-строкой; курсор привязан к сортировке, с которой выдан.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchCursor {
+    private static final char SEPARATOR = '\n';
+
+    private UserSearchSort sort;
+    private boolean descending;
+    private String sortValue;
+    private long id;
+
+    public static UserSearchCursor after(UserSearchSort sort, boolean descending, UserResource last) {
+        String sortValue = switch (sort) {
+            case ID -> null;
+            case NAME -> last.getName();
+            case AGE -> String.valueOf(last.getAge());
+        };
+        return new UserSearchCursor(sort, descending, sortValue, last.getId());
+    }
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + descending + SEPARATOR + id + SEPARATOR + (sortValue == null ? "" : sortValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserSearchCursor decode(String token, UserSearchSort sort, boolean descending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), 4);
+            if (parts.length != 4 || UserSearchSort.valueOf(parts[0]) != sort || Boolean.parseBoolean(parts[1]) != descending) {
+                throw new ValidationException("Курсор выдан для другой сортировки");
+            }
+            UserSearchCursor cursor = new UserSearchCursor(sort, descending, parts[3], Long.parseLong(parts[2]));
+            if (sort == UserSearchSort.AGE) {
+                Integer.parseInt(cursor.sortValue);
+            }
+            return cursor;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор");
+        }
+    }
+}
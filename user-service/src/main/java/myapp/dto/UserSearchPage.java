@@ -0,0 +1,13 @@
+package myapp.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchPage {
+    private List<UserResource> users;
+    private String nextCursor;
+}
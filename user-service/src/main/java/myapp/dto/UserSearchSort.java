@@ -0,0 +1,31 @@
+package myapp.dto;
+
+import myapp.exceptions.ValidationException;
+
+/**
+ * Допустимые ключи сортировки поиска. У каждого есть индекс (ключ, id) — см. миграцию V2.
+ */
+public enum UserSearchSort {
+    ID("id"),
+    NAME("name"),
+    AGE("age");
+
+    private final String column;
+
+    UserSearchSort(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public static UserSearchSort parse(String value) {
+        for (UserSearchSort sort : values()) {
+            if (sort.column.equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        throw new ValidationException("Сортировка возможна только по полям id, name, age");
+    }
+}
@@ -29,6 +29,7 @@ public class UserMapper {
                 .name(user.getName())
                 .email(user.getEmail())
                 .age(user.getAge())
+                .version(user.getVersion())
                 .build();
     }
 }
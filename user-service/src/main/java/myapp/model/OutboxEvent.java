@@ -0,0 +1,54 @@
+package myapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import myapp.dto.OperationType;
+import myapp.dto.UserEvent;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_outbox_seq")
+    @SequenceGenerator(name = "user_outbox_seq", sequenceName = "user_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OperationType operation;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public static OutboxEvent of(OperationType operation, Long userId, String email) {
+        return OutboxEvent.builder()
+                .operation(operation)
+                .userId(userId)
+                .email(email)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    /**
+     * Ключ записи в Kafka: события одного пользователя должны попадать в одну партицию.
+     */
+    public String partitionKey() {
+        return userId != null ? userId.toString() : email;
+    }
+
+    public UserEvent toUserEvent() {
+        return new UserEvent(operation, userId, email, id, createdAt);
+    }
+}
@@ -11,7 +11,8 @@ import lombok.*;
 @Builder
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,4 +22,8 @@ public class User {
     private String email;
 
     private Integer age;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package myapp.repository;
+
+import myapp.dto.OperationType;
+import myapp.dto.UserDto;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Массовая загрузка пользователей через COPY. Файл сначала целиком копируется во временную
+ * таблицу без ограничений, затем одним INSERT ... SELECT переносится в users и user_outbox.
+ * Все методы работают на соединении текущей транзакции.
+ */
+@Repository
+public class UserImportRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMPORARY TABLE user_import (
+                line  BIGSERIAL,
+                name  TEXT,
+                email TEXT,
+                age   TEXT
+            ) ON COMMIT DROP""";
+
+    private static final String COPY_CSV = "COPY user_import (name, email, age) FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    private static final String COPY_ROWS = "COPY user_import (name, email, age) FROM STDIN WITH (FORMAT csv)";
+
+    /*
+     * id выдаются блоками по 50 из users_seq и user_outbox_seq — так же, как их резервирует
+     * pooled-оптимизатор Hibernate (allocationSize = 50), поэтому с обычными вставками они не пересекаются.
+     * Невалидные строки, повторы email внутри файла и уже занятые email пропускаются. ON CONFLICT не используется:
+     * в секционированной схеме (db/partitioning) у users нет уникального индекса по email.
+     */
+    private static final String MOVE_STAGED = """
+            WITH parsed AS (
+                SELECT line, btrim(name) AS name, btrim(email) AS email,
+                       CASE WHEN btrim(age) ~ '^[0-9]{1,3}$' THEN btrim(age)::int END AS age
+                FROM user_import
+            ), deduplicated AS (
+                SELECT DISTINCT ON (email) line, name, email, age
+                FROM parsed
+                WHERE name <> ''
+                  AND email ~ '^[^@\\s]+@[^@\\s]+$'
+                  AND age BETWEEN 1 AND 120
+                ORDER BY email, line
+            ), valid AS (
+                SELECT row_number() OVER (ORDER BY line) - 1 AS rn, name, email, age
+                FROM deduplicated d
+                WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.email = d.email)
+            ), user_blocks AS (
+                SELECT row_number() OVER () - 1 AS block, nextval('users_seq') AS hi
+                FROM generate_series(1, (SELECT (count(*) + 49) / 50 FROM valid))
+            ), inserted AS (
+                INSERT INTO users (id, name, email, age)
+                SELECT b.hi - 49 + v.rn % 50, v.name, v.email, v.age
+                FROM valid v JOIN user_blocks b ON b.block = v.rn / 50
+                ORDER BY v.rn
+                RETURNING id, email
+            ), numbered AS (
+                SELECT row_number() OVER (ORDER BY id) - 1 AS rn, id, email FROM inserted
+            ), outbox_blocks AS (
+                SELECT row_number() OVER () - 1 AS block, nextval('user_outbox_seq') AS hi
+                FROM generate_series(1, (SELECT (count(*) + 49) / 50 FROM numbered))
+            )
+            INSERT INTO user_outbox (id, operation, user_id, email, created_at)
+            SELECT b.hi - 49 + n.rn % 50, ?, n.id, n.email, now()
+            FROM numbered n JOIN outbox_blocks b ON b.block = n.rn / 50""";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserImportRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void createStagingTable() {
+        jdbcTemplate.execute(CREATE_STAGING);
+    }
+
+    /**
+     * CSV с заголовком name,email,age передаётся серверу как есть, без разбора в приложении.
+     */
+    public long copyCsv(InputStream csv) {
+        try {
+            return copyManager().copyIn(COPY_CSV, csv, COPY_BUFFER_SIZE);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ошибка COPY при импорте пользователей", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Пишет строки в COPY в формате CSV по мере чтения из итератора, не накапливая их в памяти.
+     */
+    public long copyRows(Iterator<UserDto> rows) {
+        try {
+            try (PGCopyOutputStream out = new PGCopyOutputStream(connection().unwrap(PGConnection.class), COPY_ROWS, COPY_BUFFER_SIZE)) {
+                StringBuilder row = new StringBuilder(128);
+                while (rows.hasNext()) {
+                    UserDto user = rows.next();
+                    row.setLength(0);
+                    appendCsv(row, user.getName()).append(',');
+                    appendCsv(row, user.getEmail()).append(',');
+                    if (user.getAge() != null) {
+                        row.append(user.getAge());
+                    }
+                    out.write(row.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                }
+                return out.endCopy();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ошибка COPY при импорте пользователей", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Переносит строки из временной таблицы в users и user_outbox, возвращает число созданных пользователей.
+     */
+    public int moveStaged() {
+        return jdbcTemplate.update(MOVE_STAGED, OperationType.CREATE.name());
+    }
+
+    private CopyManager copyManager() throws SQLException {
+        return connection().unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private Connection connection() {
+        return DataSourceUtils.getConnection(dataSource);
+    }
+
+    private static StringBuilder appendCsv(StringBuilder row, String value) {
+        if (value == null) {
+            return row;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        return row.append('"');
+    }
+}
@@ -0,0 +1,92 @@
+package myapp.repository;
+
+import myapp.dto.UserResource;
+import myapp.dto.UserSearchCriteria;
+import myapp.dto.UserSearchCursor;
+import myapp.dto.UserSearchSort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Поиск пользователей с keyset-пагинацией. Возвращает проекцию колонок сразу в UserResource,
+ * минуя сущности и persistence context. Каждый фильтр опирается на индекс из миграции V2.
+ */
+@Repository
+public class UserSearchRepository {
+
+    private static final RowMapper<UserResource> ROW_MAPPER = (rs, rowNum) -> UserResource.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .email(rs.getString("email"))
+            .age((Integer) rs.getObject("age"))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserSearchRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserResource> search(UserSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder("SELECT id, name, email, age FROM users WHERE TRUE");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        if (criteria.getNamePrefix() != null) {
+            sql.append(" AND name ILIKE :namePattern ESCAPE '\\'");
+            params.addValue("namePattern", escapeLike(criteria.getNamePrefix()) + "%");
+        }
+        if (criteria.getEmailDomain() != null) {
+            sql.append(" AND lower(split_part(email, '@', 2)) = :emailDomain");
+            params.addValue("emailDomain", criteria.getEmailDomain().toLowerCase(Locale.ROOT));
+        }
+        if (criteria.getMinAge() != null) {
+            sql.append(" AND age >= :minAge");
+            params.addValue("minAge", criteria.getMinAge());
+        }
+        if (criteria.getMaxAge() != null) {
+            sql.append(" AND age <= :maxAge");
+            params.addValue("maxAge", criteria.getMaxAge());
+        }
+
+        UserSearchSort sort = criteria.getSort();
+        String direction = criteria.isDescending() ? "DESC" : "ASC";
+        String comparison = criteria.isDescending() ? "<" : ">";
+        if (sort == UserSearchSort.AGE) {
+            // NULL не сравнивается в row-выражении курсора, поэтому при сортировке по возрасту такие строки не участвуют
+            sql.append(" AND age IS NOT NULL");
+        }
+
+        UserSearchCursor after = criteria.getAfter();
+        if (after != null) {
+            params.addValue("afterId", after.getId());
+            if (sort == UserSearchSort.ID) {
+                sql.append(" AND id ").append(comparison).append(" :afterId");
+            } else {
+                sql.append(" AND (").append(sort.getColumn()).append(", id) ").append(comparison).append(" (:afterValue, :afterId)");
+                params.addValue("afterValue", sort == UserSearchSort.AGE ? Integer.valueOf(after.getSortValue()) : after.getSortValue());
+            }
+        }
+
+        if (sort != UserSearchSort.ID) {
+            sql.append(" ORDER BY ").append(sort.getColumn()).append(' ').append(direction).append(", id ").append(direction);
+        } else {
+            sql.append(" ORDER BY id ").append(direction);
+        }
+        sql.append(" LIMIT :limit");
+        params.addValue("limit", criteria.getSize());
+
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
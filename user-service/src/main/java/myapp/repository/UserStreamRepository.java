@@ -0,0 +1,38 @@
+package myapp.repository;
+
+import myapp.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+@Repository
+public class UserStreamRepository {
+
+    private static final String SELECT_ALL = "SELECT id, name, email, age FROM users ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserStreamRepository(DataSource dataSource,
+                                @Value("${app.users.stream-fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Читает таблицу серверным курсором: PostgreSQL отдаёт строки порциями по fetchSize
+     * только внутри транзакции (autocommit=false), поэтому вызывать из транзакционного метода.
+     */
+    public void forEach(Consumer<User> consumer) {
+        jdbcTemplate.query(SELECT_ALL, rs -> {
+            consumer.accept(User.builder()
+                    .id(rs.getLong("id"))
+                    .name(rs.getString("name"))
+                    .email(rs.getString("email"))
+                    .age((Integer) rs.getObject("age"))
+                    .build());
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package myapp.repository;
+
+import myapp.model.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Optional;
+
+/**
+ * Изменение и удаление пользователя одним запросом с RETURNING — без предварительного чтения.
+ * Нарушение уникальности email приходит из базы как DuplicateKeyException.
+ */
+@Repository
+public class UserWriteRepository {
+
+    private static final String UPDATE_PARTIAL = """
+            UPDATE users
+            SET name    = COALESCE(?, name),
+                email   = COALESCE(?, email),
+                age     = COALESCE(?, age),
+                version = version + 1
+            WHERE id = ?
+            RETURNING id, name, email, age, version""";
+
+    private static final String UPDATE_PARTIAL_IF_VERSION = """
+            UPDATE users
+            SET name    = COALESCE(?, name),
+                email   = COALESCE(?, email),
+                age     = COALESCE(?, age),
+                version = version + 1
+            WHERE id = ? AND version = ?
+            RETURNING id, name, email, age, version""";
+
+    private static final String DELETE = "DELETE FROM users WHERE id = ? RETURNING id, name, email, age, version";
+
+    private static final RowMapper<User> ROW_MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .email(rs.getString("email"))
+            .age((Integer) rs.getObject("age"))
+            .version(rs.getLong("version"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserWriteRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Обновляет только переданные (не null) поля и возвращает строку после изменения.
+     */
+    public Optional<User> updatePartial(Long id, String name, String email, Integer age) {
+        return jdbcTemplate.query(UPDATE_PARTIAL, ROW_MAPPER, name, email, age, id).stream().findFirst();
+    }
+
+    /**
+     * То же, но только если версия строки совпадает с ожидаемой. Пустой результат означает,
+     * что пользователя нет или его уже изменили.
+     */
+    public Optional<User> updatePartialIfVersion(Long id, long expectedVersion, String name, String email, Integer age) {
+        return jdbcTemplate.query(UPDATE_PARTIAL_IF_VERSION, ROW_MAPPER, name, email, age, id, expectedVersion)
+                .stream().findFirst();
+    }
+
+    public Optional<User> deleteReturning(Long id) {
+        return jdbcTemplate.query(DELETE, ROW_MAPPER, id).stream().findFirst();
+    }
+}
@@ -0,0 +1,198 @@
+package myapp.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import myapp.cache.UserCache;
+import myapp.dto.OperationType;
+import myapp.dto.UserBatchItem;
+import myapp.dto.UserBatchItemResult;
+import myapp.dto.UserDto;
+import myapp.mapper.UserMapper;
+import myapp.model.OutboxEvent;
+import myapp.model.User;
+import myapp.repository.OutboxEventRepository;
+import myapp.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетная обработка операций над пользователями: одна транзакция, один запрос на проверку
+ * уникальности email, JDBC-батчи на запись и события в outbox той же транзакцией. Email,
+ * занятый параллельной записью после проверки, ловит ограничение в базе: пакет откатывается
+ * с той же ошибкой валидации, что и одиночное создание.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class UserBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserBatchService.class);
+
+    private final UserRepository userRepository;
+    private final Validator validator;
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserCache userCache;
+
+    public List<UserBatchItemResult> execute(List<UserBatchItem> items) {
+        UserBatchItemResult[] results = new UserBatchItemResult[items.size()];
+
+        Set<Long> targetIds = items.stream()
+                .filter(item -> item.getOperation() != OperationType.CREATE)
+                .map(UserBatchItem::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> targets = targetIds.isEmpty() ? Map.of() : userRepository.findAllById(targetIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        Set<String> candidateEmails = items.stream()
+                .filter(item -> item.getOperation() != OperationType.DELETE && item.getUser() != null)
+                .map(item -> item.getUser().getEmail())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> takenEmails = new HashSet<>(candidateEmails.isEmpty()
+                ? Set.of() : userRepository.findExistingEmails(candidateEmails));
+
+        List<User> created = new ArrayList<>();
+        List<Integer> createdIndexes = new ArrayList<>();
+        Set<Long> deletedIds = new HashSet<>();
+        OutboxEvent[] events = new OutboxEvent[items.size()];
+
+        for (int i = 0; i < items.size(); i++) {
+            UserBatchItem item = items.get(i);
+            switch (item.getOperation()) {
+                case CREATE -> {
+                    String error = validateCreate(item.getUser(), takenEmails);
+                    if (error != null) {
+                        results[i] = UserBatchItemResult.failure(i, HttpStatus.BAD_REQUEST.value(), null, error);
+                        continue;
+                    }
+                    User user = UserMapper.toEntity(item.getUser());
+                    user.setId(null);
+                    takenEmails.add(user.getEmail());
+                    created.add(user);
+                    createdIndexes.add(i);
+                }
+                case UPDATE -> {
+                    User user = item.getId() == null || deletedIds.contains(item.getId()) ? null : targets.get(item.getId());
+                    if (user == null) {
+                        results[i] = notFound(i, item.getId());
+                        continue;
+                    }
+                    String error = validateUpdate(user, item.getUser(), takenEmails);
+                    if (error != null) {
+                        results[i] = UserBatchItemResult.failure(i, HttpStatus.BAD_REQUEST.value(), user.getId(), error);
+                        continue;
+                    }
+                    applyUpdate(user, item.getUser(), takenEmails);
+                    results[i] = UserBatchItemResult.success(i, HttpStatus.OK.value(), user.getId());
+                    events[i] = OutboxEvent.of(OperationType.UPDATE, user.getId(), user.getEmail());
+                }
+                case DELETE -> {
+                    User user = item.getId() == null || deletedIds.contains(item.getId()) ? null : targets.get(item.getId());
+                    if (user == null) {
+                        results[i] = notFound(i, item.getId());
+                        continue;
+                    }
+                    deletedIds.add(user.getId());
+                    results[i] = UserBatchItemResult.success(i, HttpStatus.NO_CONTENT.value(), user.getId());
+                    events[i] = OutboxEvent.of(OperationType.DELETE, user.getId(), user.getEmail());
+                }
+            }
+        }
+
+        try {
+            userRepository.saveAll(created);
+            // Через репозиторий, а не EntityManager: нарушение ограничения приходит как DataIntegrityViolationException
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw UserService.translateDuplicateEmail(e);
+        }
+        if (!deletedIds.isEmpty()) {
+            userRepository.deleteAllByIdInBatch(deletedIds);
+        }
+        for (int i = 0; i < created.size(); i++) {
+            int index = createdIndexes.get(i);
+            User user = created.get(i);
+            results[index] = UserBatchItemResult.success(index, HttpStatus.CREATED.value(), user.getId());
+            events[index] = OutboxEvent.of(OperationType.CREATE, user.getId(), user.getEmail());
+        }
+
+        log.info("Пакет обработан: {} операций, создано {}, удалено {}", items.size(), created.size(), deletedIds.size());
+        for (UserBatchItemResult result : results) {
+            if (result.isSuccess()) {
+                userCache.invalidateAfterCommit(result.getId());
+            }
+        }
+        outboxEventRepository.saveAll(Arrays.stream(events).filter(Objects::nonNull).toList());
+        return List.of(results);
+    }
+
+    private String validateCreate(UserDto dto, Set<String> takenEmails) {
+        if (dto == null) {
+            return "Данные пользователя обязательны";
+        }
+        Set<ConstraintViolation<UserDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (takenEmails.contains(dto.getEmail())) {
+            return "Email уже занят";
+        }
+        return null;
+    }
+
+    private String validateUpdate(User user, UserDto dto, Set<String> takenEmails) {
+        if (dto == null) {
+            return "Данные пользователя обязательны";
+        }
+        Set<ConstraintViolation<UserDto>> violations = new HashSet<>();
+        if (dto.getName() != null) {
+            violations.addAll(validator.validateProperty(dto, "name"));
+        }
+        if (dto.getEmail() != null) {
+            violations.addAll(validator.validateProperty(dto, "email"));
+        }
+        if (dto.getAge() != null) {
+            violations.addAll(validator.validateProperty(dto, "age"));
+        }
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (dto.getEmail() != null && !dto.getEmail().equals(user.getEmail()) && takenEmails.contains(dto.getEmail())) {
+            return "Email уже занят";
+        }
+        return null;
+    }
+
+    private void applyUpdate(User user, UserDto dto, Set<String> takenEmails) {
+        if (dto.getName() != null) {
+            user.setName(dto.getName());
+        }
+        if (dto.getEmail() != null) {
+            takenEmails.add(dto.getEmail());
+            user.setEmail(dto.getEmail());
+        }
+        if (dto.getAge() != null) {
+            user.setAge(dto.getAge());
+        }
+    }
+
+    private UserBatchItemResult notFound(int index, Long id) {
+        return UserBatchItemResult.failure(index, HttpStatus.NOT_FOUND.value(), id, "Пользователь с ID " + id + " не найден");
+    }
+}
@@ -0,0 +1,64 @@
+package myapp.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import myapp.dto.UserDto;
+import myapp.dto.UserImportResult;
+import myapp.exceptions.ValidationException;
+import myapp.repository.UserImportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Импорт пользователей из файла со скоростью COPY. Всё выполняется одной транзакцией:
+ * либо пользователи созданы вместе с событиями CREATE в outbox, либо не создано ничего.
+ * События уходят в Kafka обычным OutboxRelay пачками по app.outbox.batch-size.
+ */
+@Service
+@Transactional
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserImportRepository userImportRepository;
+    private final ObjectReader ndjsonReader;
+
+    public UserImportService(UserImportRepository userImportRepository, ObjectMapper objectMapper) {
+        this.userImportRepository = userImportRepository;
+        this.ndjsonReader = objectMapper.readerFor(UserDto.class);
+    }
+
+    public UserImportResult importCsv(InputStream csv) {
+        userImportRepository.createStagingTable();
+        return moveStaged(userImportRepository.copyCsv(csv));
+    }
+
+    public UserImportResult importNdjson(InputStream ndjson) {
+        userImportRepository.createStagingTable();
+        try (MappingIterator<UserDto> rows = ndjsonReader.readValues(ndjson)) {
+            return moveStaged(userImportRepository.copyRows(rows));
+        } catch (RuntimeJsonMappingException e) {
+            throw new ValidationException("Некорректная строка NDJSON: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private UserImportResult moveStaged(long received) {
+        long imported = userImportRepository.moveStaged();
+        log.info("Импорт пользователей: прочитано {}, создано {}, пропущено {}", received, imported, received - imported);
+        return UserImportResult.builder()
+                .received(received)
+                .imported(imported)
+                .skipped(received - imported)
+                .build();
+    }
+}
@@ -1,28 +1,42 @@
 package myapp.service;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
-import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import myapp.cache.UserCache;
+import myapp.cache.UserQueryFlights;
 import myapp.dto.OperationType;
-import myapp.dto.UserEvent;
 import myapp.dto.UserDto;
 import myapp.dto.UserResource;
+import myapp.dto.UserSearchCriteria;
+import myapp.dto.UserSearchCursor;
+import myapp.dto.UserSearchPage;
+import myapp.exceptions.PreconditionFailedException;
 import myapp.exceptions.UserNotFoundException;
 import myapp.exceptions.ValidationException;
 import myapp.mapper.UserMapper;
+import myapp.model.OutboxEvent;
 import myapp.model.User;
+import myapp.repository.OutboxEventRepository;
 import myapp.repository.UserRepository;
+import myapp.repository.UserSearchRepository;
+import myapp.repository.UserStreamRepository;
+import myapp.repository.UserWriteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -31,96 +45,140 @@ public class UserService {
 
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
+    /** SQLSTATE unique_violation в PostgreSQL */
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final UserRepository userRepository;
-    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final UserStreamRepository userStreamRepository;
+    private final UserSearchRepository userSearchRepository;
+    private final UserWriteRepository userWriteRepository;
+    private final Validator validator;
+    private final UserCache userCache;
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserQueryFlights userQueryFlights;
+
+    // Чтения через single-flight идут без внешней транзакции: ждущие вызовы не держат соединения
+    // из пула, а запрос ведущего открывает read-only транзакцию в репозитории (и уходит на реплику).
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<UserResource> getAllUsers(Long afterId, int size) {
+        return userQueryFlights.page(afterId, size, () ->
+                userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)).stream()
+                        .map(UserMapper::toResource)
+                        .toList());
+    }
 
-    @Value("${app.kafka.topic-name:user-events}")
-    private String topicName;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public UserSearchPage searchUsers(UserSearchCriteria criteria) {
+        if (criteria.getMinAge() != null && criteria.getMaxAge() != null && criteria.getMinAge() > criteria.getMaxAge()) {
+            throw new ValidationException("Минимальный возраст больше максимального");
+        }
+        List<UserResource> users = userQueryFlights.search(criteria, () -> userSearchRepository.search(criteria));
+        String nextCursor = users.size() < criteria.getSize() ? null
+                : UserSearchCursor.after(criteria.getSort(), criteria.isDescending(), users.get(users.size() - 1)).encode();
+        return new UserSearchPage(users, nextCursor);
+    }
 
-    public List<UserResource> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(UserMapper::toResource)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserDto> consumer) {
+        userStreamRepository.forEach(user -> consumer.accept(UserMapper.toDto(user)));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserResource getUserById(Long id) {
-        User user = userRepository.findById(id)
+        return userCache.get(id, key -> userRepository.findById(key).map(UserMapper::toResource))
                 .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
-        return UserMapper.toResource(user);
     }
 
     public UserResource createUser(@Valid UserDto dto) {
-        if (userRepository.existsByEmail(dto.getEmail())) {
-            throw new ValidationException("Email уже занят");
-        }
+        validate(validator.validate(dto));
 
         User user = UserMapper.toEntity(dto);
         user.setId(null);
-        User saved = userRepository.save(user);
+        User saved;
+        try {
+            // Уникальность email проверяет ограничение в базе, flush нужен, чтобы поймать нарушение здесь, а не на коммите
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateEmail(e);
+        }
         log.info("Успешно создан пользователь: {}", saved.getEmail());
 
-        sendUserEvent(OperationType.CREATE, saved.getEmail());
+        userCache.invalidateAfterCommit(saved.getId());
+        enqueueUserEvent(OperationType.CREATE, saved.getId(), saved.getEmail());
 
         return UserMapper.toResource(saved);
     }
 
     public UserResource updateUser(Long id, UserDto dto) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь с ID " + id + " не найден"));
+        return updateUser(id, dto, null);
+    }
 
-        if (dto.getName() != null) {
-            user.setName(dto.getName());
-        }
-        if (dto.getEmail() != null) {
-            if (!dto.getEmail().equals(user.getEmail()) && userRepository.existsByEmail(dto.getEmail())) {
-                throw new ValidationException("Email уже занят");
-            }
-            user.setEmail(dto.getEmail());
+    /**
+     * Условное обновление: при expectedVersion, отличной от текущей версии строки,
+     * пользователь не меняется и выбрасывается PreconditionFailedException.
+     */
+    public UserResource updateUser(Long id, UserDto dto, Long expectedVersion) {
+        validatePartial(dto);
+
+        User updated;
+        try {
+            updated = (expectedVersion == null
+                    ? userWriteRepository.updatePartial(id, dto.getName(), dto.getEmail(), dto.getAge())
+                    : userWriteRepository.updatePartialIfVersion(id, expectedVersion, dto.getName(), dto.getEmail(), dto.getAge()))
+                    .orElseThrow(() -> expectedVersion != null && userRepository.existsById(id)
+                            ? new PreconditionFailedException("Пользователь с ID " + id + " изменён другим запросом")
+                            : new UserNotFoundException("Пользователь с ID " + id + " не найден"));
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateEmail(e);
         }
-        if (dto.getAge() != null) {
-            user.setAge(dto.getAge());
-        }
-
-        User updated = userRepository.save(user);
         log.info("Пользователь с ID {} обновлён", id);
         
-        sendUserEvent(OperationType.UPDATE, updated.getEmail());
+        userCache.invalidateAfterCommit(id);
+        enqueueUserEvent(OperationType.UPDATE, id, updated.getEmail());
         
         return UserMapper.toResource(updated);
     }
 
     public void deleteUser(Long id) {
-        UserResource user = getUserById(id);
-        userRepository.deleteById(id);
+        User deleted = userWriteRepository.deleteReturning(id)
+                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
         log.info("Пользователь с ID {} удалён", id);
 
-        sendUserEvent(OperationType.DELETE, user.getEmail());
+        userCache.invalidateAfterCommit(id);
+        enqueueUserEvent(OperationType.DELETE, id, deleted.getEmail());
+    }
+
+    private void validatePartial(UserDto dto) {
+        Set<ConstraintViolation<UserDto>> violations = new HashSet<>();
+        if (dto.getName() != null) {
+            violations.addAll(validator.validateProperty(dto, "name"));
+        }
+        if (dto.getEmail() != null) {
+            violations.addAll(validator.validateProperty(dto, "email"));
+        }
+        if (dto.getAge() != null) {
+            violations.addAll(validator.validateProperty(dto, "age"));
+        }
+        validate(violations);
+    }
+
+    private static void validate(Set<ConstraintViolation<UserDto>> violations) {
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.iterator().next().getMessage());
+        }
     }
 
-    @CircuitBreaker(name = "user-service", fallbackMethod = "sendUserEventFallback")
-    @TimeLimiter(name = "user-service")
-    public CompletableFuture<Void> sendUserEvent(OperationType operation, String email) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                UserEvent event = new UserEvent(operation, email);
-                kafkaTemplate.send(topicName, event)
-                        .whenComplete((result, ex) -> {
-                            if (ex == null) {
-                                log.info("Событие '{}' отправлено для email: {}", operation.name(), email);
-                            } else {
-                                log.error("Ошибка отправки события '{}' для email: {}", operation.name(), email, ex);
-                            }
-                        });
-                return null;
-            } catch (Exception e) {
-                log.error("Ошибка отправки события для email: {}", email, e);
-                throw new RuntimeException("Ошибка отправки события", e);
-            }
-        });
+    /**
+     * Нарушение уникального индекса email (SQLSTATE 23505) — та же ошибка валидации, что и при
+     * проверке заранее; остальные нарушения целостности пробрасываются как есть.
+     */
+    static RuntimeException translateDuplicateEmail(DataIntegrityViolationException e) {
+        boolean uniqueViolation = e instanceof DuplicateKeyException
+                || e.getMostSpecificCause() instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState());
+        return uniqueViolation ? new ValidationException("Email уже занят") : e;
     }
 
-    public CompletableFuture<Void> sendUserEventFallback(OperationType operation, String email, Exception ex) {
-        log.warn("Fallback для отправки события '{}' для email: {}", operation.name(), email);
-        return CompletableFuture.completedFuture(null);
+    private void enqueueUserEvent(OperationType operation, Long userId, String email) {
+        outboxEventRepository.save(OutboxEvent.of(operation, userId, email));
     }
 }
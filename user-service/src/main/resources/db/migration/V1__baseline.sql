@@ -0,0 +1,26 @@
+-- Базовая схема user-service. Повторяет то, что раньше создавал Hibernate (ddl-auto),
+-- поэтому безопасна и для пустой базы, и для уже существующей.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id    BIGINT       NOT NULL PRIMARY KEY,
+    name  VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    age   INTEGER
+);
+
+CREATE SEQUENCE IF NOT EXISTS user_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS user_outbox (
+    id         BIGINT                      NOT NULL PRIMARY KEY,
+    operation  VARCHAR(16)                 NOT NULL,
+    user_id    BIGINT,
+    email      VARCHAR(255)                NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Строки, созданные до перехода на последовательность, не должны пересечься с новыми id:
+-- pooled-оптимизатор Hibernate выдаёт id из диапазона (nextval - 50, nextval].
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM users),
+                                    (SELECT last_value FROM users_seq)));
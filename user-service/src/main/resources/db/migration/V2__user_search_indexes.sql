@@ -0,0 +1,13 @@
+-- Индексы под /api/users/search: фильтры и keyset-пагинация по (ключ сортировки, id).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Префикс имени без учёта регистра: name ILIKE 'ann%'
+CREATE INDEX IF NOT EXISTS users_name_trgm_idx ON users USING gin (name gin_trgm_ops);
+
+-- Домен email: lower(split_part(email, '@', 2)) = 'example.com'
+CREATE INDEX IF NOT EXISTS users_email_domain_idx ON users (lower(split_part(email, '@', 2)));
+
+-- Сортировка и курсор по имени и по возрасту (в обе стороны — обратным сканированием)
+CREATE INDEX IF NOT EXISTS users_name_id_idx ON users (name, id);
+CREATE INDEX IF NOT EXISTS users_age_id_idx ON users (age, id);
@@ -0,0 +1,13 @@
+-- Порядок публикации событий. id строк outbox выдаются блоками на каждый экземпляр сервиса
+-- и не отражают порядок записи, поэтому номер присваивает база в момент вставки.
+-- Запись в users блокирует строку пользователя до коммита, так что для одного пользователя
+-- position растёт в порядке изменений.
+
+CREATE SEQUENCE IF NOT EXISTS user_outbox_position_seq;
+
+ALTER TABLE user_outbox
+    ADD COLUMN IF NOT EXISTS position BIGINT NOT NULL DEFAULT nextval('user_outbox_position_seq');
+
+ALTER SEQUENCE user_outbox_position_seq OWNED BY user_outbox.position;
+
+CREATE INDEX IF NOT EXISTS user_outbox_position_idx ON user_outbox (position);
@@ -0,0 +1,5 @@
+-- Версия строки для оптимистической блокировки и ETag. Любое изменение пользователя
+-- (JPA, UPDATE ... RETURNING в обоих сервисах) увеличивает её на единицу.
+-- IF NOT EXISTS: на базе, где секционирование применено позже (out-of-order), столбец уже перенесён.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,51 @@
+-- Необязательная миграция: секционирование users по хешу id на 16 секций.
+-- Подключается через spring.flyway.locations=classpath:db/migration,classpath:db/partitioning
+-- (на базе, уже прошедшей более поздние миграции, нужен ещё spring.flyway.out-of-order=true).
+-- Уникальный индекс секционированной таблицы обязан включать ключ секционирования, поэтому
+-- уникальность email держит таблица user_emails, которую ведёт триггер; нарушение по-прежнему
+-- приходит как unique_violation (23505).
+
+CREATE TABLE user_emails (
+    email   VARCHAR(255) NOT NULL PRIMARY KEY,
+    user_id BIGINT       NOT NULL
+);
+
+-- Столбцы копируются с users как есть, чтобы не потерять добавленные позже (version)
+CREATE TABLE users_partitioned (LIKE users INCLUDING DEFAULTS) PARTITION BY HASH (id);
+ALTER TABLE users_partitioned ADD PRIMARY KEY (id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE users_p%s PARTITION OF users_partitioned FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+INSERT INTO users_partitioned SELECT * FROM users;
+INSERT INTO user_emails (email, user_id) SELECT email, id FROM users;
+
+DROP TABLE users;
+ALTER TABLE users_partitioned RENAME TO users;
+
+-- Индексы создаются на родительской таблице и наследуются секциями
+CREATE INDEX users_email_idx ON users (email);
+CREATE INDEX users_name_trgm_idx ON users USING gin (name gin_trgm_ops);
+CREATE INDEX users_email_domain_idx ON users (lower(split_part(email, '@', 2)));
+CREATE INDEX users_name_id_idx ON users (name, id);
+CREATE INDEX users_age_id_idx ON users (age, id);
+
+CREATE FUNCTION users_email_guard() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.email IS DISTINCT FROM OLD.email) THEN
+        DELETE FROM user_emails WHERE email = OLD.email;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.email IS DISTINCT FROM OLD.email) THEN
+        INSERT INTO user_emails (email, user_id) VALUES (NEW.email, NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER users_email_guard
+    AFTER INSERT OR UPDATE OF email OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION users_email_guard();
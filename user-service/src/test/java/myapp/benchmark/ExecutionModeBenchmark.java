@@ -0,0 +1,86 @@
+package myapp.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочное сравнение режимов app.execution.mode. Запускается против работающего
+ * user-service (сначала в режиме platform, затем в режиме virtual):
+ *
+ * <pre>
+ * mvn -pl user-service test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=myapp.benchmark.ExecutionModeBenchmark \
+ *     -Dexec.args="http://localhost:8081/api/users/1 2000 100000"
+ * </pre>
+ *
+ * Аргументы: URL, число одновременных запросов, общее число запросов.
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8081/api/users/1");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int total = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int warmup = Math.min(total / 10, 10_000);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        run(client, request, concurrency, warmup);
+        Result result = run(client, request, concurrency, total);
+
+        System.out.printf("url=%s concurrency=%d requests=%d%n", uri, concurrency, total);
+        System.out.printf("throughput=%.0f req/s errors=%d%n", total / result.seconds(), result.errors());
+        System.out.printf("latency p50=%.1f ms p95=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                result.percentile(0.50), result.percentile(0.95), result.percentile(0.99), result.percentile(1.0));
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int total) throws InterruptedException {
+        long[] latencies = new long[total];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                int index = i;
+                inFlight.acquire();
+                executor.submit(() -> {
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 500) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - requestStart;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new Result(latencies, errors.get(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private record Result(long[] latencies, int errors, double seconds) {
+
+        double percentile(double p) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package myapp.broker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import myapp.dto.OperationType;
+import myapp.dto.UserEvent;
+import myapp.model.OutboxEvent;
+import myapp.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate = mock();
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaTemplate, transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outboxRelay, "topicName", "user-events");
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeoutMs", 1000L);
+    }
+
+    @Test
+    void relay_keysEventsByUserId() {
+        when(outboxEventRepository.tryLockRelay(OutboxRelay.RELAY_LOCK_KEY)).thenReturn(true);
+        OutboxEvent first = OutboxEvent.builder().id(1L).operation(OperationType.CREATE).userId(42L).email("a@example.com").build();
+        OutboxEvent second = OutboxEvent.builder().id(2L).operation(OperationType.DELETE).userId(null).email("b@example.com").build();
+        when(outboxEventRepository.lockNextBatch(100)).thenReturn(List.of(first, second));
+        SendResult<String, UserEvent> sent = mock();
+        when(kafkaTemplate.send(anyString(), anyString(), any(UserEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(sent));
+
+        outboxRelay.relay();
+
+        verify(kafkaTemplate).send("user-events", "42", first.toUserEvent());
+        verify(kafkaTemplate).send("user-events", "b@example.com", second.toUserEvent());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    void relay_skipsBatchWhenAnotherRelayHoldsLock() {
+        when(outboxEventRepository.tryLockRelay(OutboxRelay.RELAY_LOCK_KEY)).thenReturn(false);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).lockNextBatch(anyInt());
+        verifyNoInteractions(kafkaTemplate);
+    }
+}
@@ -0,0 +1,42 @@
+package myapp.broker;
+
+import myapp.dto.OperationType;
+import myapp.dto.UserEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserEventSerializerTest {
+
+    private final UserEventSerializer serializer = new UserEventSerializer();
+
+    @Test
+    void serialize_writesSchemaVersionTwoLayout() {
+        byte[] bytes = serializer.serialize("user-events",
+                new UserEvent(OperationType.DELETE, 300L, "a@b.c", 7L, Instant.ofEpochMilli(1000)));
+
+        assertArrayEquals(new byte[]{0x00, 0x02, 0x02, 0x01, (byte) 0xD8, 0x04, 0x01, 0x05, 'a', '@', 'b', '.', 'c',
+                0x01, 0x0E, 0x01, (byte) 0xD0, 0x0F}, bytes);
+    }
+
+    @Test
+    void serialize_nullFields_writeAbsenceMarkers() {
+        byte[] bytes = serializer.serialize("user-events", new UserEvent(OperationType.CREATE, null, null, null, null));
+
+        assertArrayEquals(new byte[]{0x00, 0x02, 0x00, 0x00, 0x00, 0x00, 0x00}, bytes);
+        assertNull(serializer.serialize("user-events", null));
+    }
+
+    @Test
+    void deserializer_readsSerializedAndLegacyJsonEvents() {
+        UserEvent event = new UserEvent(OperationType.UPDATE, 42L, "user@example.com", 9L, Instant.ofEpochMilli(1_700_000_000_000L));
+        UserEventDeserializer deserializer = new UserEventDeserializer();
+
+        assertEquals(event, deserializer.deserialize("user-events", serializer.serialize("user-events", event)));
+        assertEquals(new UserEvent(OperationType.DELETE, 7L, "x@example.com", null, null), deserializer.deserialize("user-events",
+                "{\"operation\":\"DELETE\",\"userId\":7,\"email\":\"x@example.com\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
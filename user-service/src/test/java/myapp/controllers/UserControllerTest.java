@@ -2,8 +2,16 @@ package myapp.controllers;
 
 import myapp.controller.UserController;
 import myapp.dto.UserDto;
+import myapp.dto.UserImportResult;
 import myapp.dto.UserResource;
+import myapp.dto.UserSearchCriteria;
+import myapp.dto.UserSearchCursor;
+import myapp.dto.UserSearchPage;
+import myapp.dto.UserSearchSort;
+import myapp.exceptions.PreconditionFailedException;
 import myapp.exceptions.UserNotFoundException;
+import myapp.service.UserBatchService;
+import myapp.service.UserImportService;
 import myapp.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -18,7 +26,9 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.util.List;
 
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
@@ -45,6 +55,12 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserBatchService userBatchService;
+
+    @MockBean
+    private UserImportService userImportService;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Test
@@ -54,12 +70,81 @@ class UserControllerTest {
                 UserResource.builder().id(2L).name(USER_NAME_2).email(USER_EMAIL_2).age(USER_AGE_2).build()
         );
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getAllUsers(0L, 50)).thenReturn(users);
 
         mockMvc.perform(get("/api/users"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.userResourceList.length()").value(users.size()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.userResourceList[0].name").value(USER_NAME_1));
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.users.length()").value(users.size()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.users[0].name").value(USER_NAME_1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.users[1]._links.self.href").value("http://localhost/api/users/2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.self.href").value("http://localhost/api/users?after=0&size=50"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    void getAllUsers_fullPage_returnsNextLink() throws Exception {
+        List<UserResource> users = List.of(
+                UserResource.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).build(),
+                UserResource.builder().id(2L).name(USER_NAME_2).email(USER_EMAIL_2).age(USER_AGE_2).build()
+        );
+
+        when(userService.getAllUsers(0L, 2)).thenReturn(users);
+
+        mockMvc.perform(get("/api/users").param("size", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.next.href").value("http://localhost/api/users?after=2&size=2"));
+    }
+
+    @Test
+    void searchUsers_fullPage_returnsCursorLink() throws Exception {
+        List<UserResource> users = List.of(
+                UserResource.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).build(),
+                UserResource.builder().id(2L).name(USER_NAME_2).email(USER_EMAIL_2).age(USER_AGE_2).build()
+        );
+        String nextCursor = UserSearchCursor.after(UserSearchSort.AGE, false, users.get(1)).encode();
+
+        when(userService.searchUsers(any(UserSearchCriteria.class))).thenReturn(new UserSearchPage(users, nextCursor));
+
+        mockMvc.perform(get("/api/users/search?emailDomain=example.com&sort=age&size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.users.length()").value(users.size()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.users[0]._links.self.href").value("http://localhost/api/users/1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.next.href")
+                        .value("http://localhost/api/users/search?emailDomain=example.com&sort=age&size=2&cursor=" + nextCursor));
+    }
+
+    @Test
+    void searchUsers_cursorFromOtherSort_returns400() throws Exception {
+        String cursor = UserSearchCursor.after(UserSearchSort.NAME, false,
+                UserResource.builder().id(USER_ID).name(USER_NAME_1).build()).encode();
+
+        mockMvc.perform(get("/api/users/search").param("sort", "age").param("cursor", cursor))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void searchUsers_unknownSort_returns400() throws Exception {
+        mockMvc.perform(get("/api/users/search").param("sort", "email"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void importCsv_returnsImportResult() throws Exception {
+        when(userImportService.importCsv(any())).thenReturn(
+                UserImportResult.builder().received(3).imported(2).skipped(1).build());
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content("name,email,age\nTest,Test@example.com,25\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.skipped").value(1));
+    }
+
+    @Test
+    void getAllUsers_sizeTooLarge_returns400() throws Exception {
+        mockMvc.perform(get("/api/users").param("size", "100000"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
     @Test
@@ -75,7 +160,46 @@ class UserControllerTest {
 
         mockMvc.perform(get("/api/users/{id}", USER_ID))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.email").value(USER_EMAIL_1));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.email").value(USER_EMAIL_1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.self.href").value("http://localhost/api/users/1"));
+    }
+
+    @Test
+    void getUserById_returnsVersionETag_andNotModifiedOnMatch() throws Exception {
+        UserResource user = UserResource.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).version(3L).build();
+
+        when(userService.getUserById(USER_ID)).thenReturn(user);
+
+        mockMvc.perform(get("/api/users/{id}", USER_ID))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(get("/api/users/{id}", USER_ID).header("If-None-Match", "\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        mockMvc.perform(get("/api/users/{id}", USER_ID).header("If-None-Match", "\"2\""))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    void getAllUsers_pageETagChangesWithVersion() throws Exception {
+        UserResource user = UserResource.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_1).version(1L).build();
+        when(userService.getAllUsers(0L, 50)).thenReturn(List.of(user));
+
+        String etag = mockMvc.perform(get("/api/users"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/users").header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        user.setVersion(2L);
+        mockMvc.perform(get("/api/users").header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", not(etag)));
     }
 
     @Test
@@ -125,6 +249,56 @@ class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(USER_NAME_2));
     }
 
+    @Test
+    void updateUser_partialBody_passesOnlyPresentFields() throws Exception {
+        UserResource updated = UserResource.builder().id(USER_ID).name(USER_NAME_1).email(USER_EMAIL_1).age(USER_AGE_2).build();
+
+        when(userService.updateUser(eq(USER_ID), argThat(dto -> dto.getName() == null && dto.getEmail() == null
+                && Integer.valueOf(USER_AGE_2).equals(dto.getAge())))).thenReturn(updated);
+
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .contentType(CONTENT_TYPE_JSON)
+                        .content("{\"age\":" + USER_AGE_2 + "}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(USER_NAME_1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(USER_AGE_2));
+    }
+
+    @Test
+    void updateUser_withIfMatch_updatesConditionally() throws Exception {
+        UserDto input = new UserDto(null, USER_NAME_2, USER_EMAIL_2, USER_AGE_2);
+        UserResource updated = UserResource.builder().id(USER_ID).name(USER_NAME_2).email(USER_EMAIL_1).age(USER_AGE_1).version(4L).build();
+
+        when(userService.updateUser(eq(USER_ID), any(UserDto.class), eq(3L))).thenReturn(updated);
+
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .header("If-Match", "\"3\"")
+                        .contentType(CONTENT_TYPE_JSON)
+                        .content(mapper.writeValueAsString(input)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateUser_staleIfMatch_returns412() throws Exception {
+        UserDto input = new UserDto(null, USER_NAME_2, USER_EMAIL_2, USER_AGE_2);
+
+        when(userService.updateUser(eq(USER_ID), any(UserDto.class), eq(3L)))
+                .thenThrow(new PreconditionFailedException("Пользователь с ID 1 изменён другим запросом"));
+
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .header("If-Match", "\"3\"")
+                        .contentType(CONTENT_TYPE_JSON)
+                        .content(mapper.writeValueAsString(input)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(CONTENT_TYPE_JSON)
+                        .content(mapper.writeValueAsString(input)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+    }
+
     @Test
     void updateUser_notFound_returns404() throws Exception {
         UserDto input = new UserDto(null, USER_NAME_NEW, USER_EMAIL_NEW, USER_AGE_NEW);
@@ -0,0 +1,153 @@
+package myapp.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Primary и реплика — два независимых контейнера PostgreSQL; какой из них ответил,
+ * видно по current_database(). Без Docker тест пропускается.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingDataSourceTest {
+
+    private static final String PIN_COOKIE = "user-service-primary";
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("primary_db");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("replica_db");
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readTransaction;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate notSupported;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(pool(PRIMARY), List.of(pool(REPLICA)),
+                Duration.ofSeconds(5), PIN_COOKIE, new SimpleMeterRegistry());
+        routingDataSource.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        notSupported = new TransactionTemplate(transactionManager);
+        notSupported.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routingDataSource.destroy();
+        PrimaryPin.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransaction_goesToReplica() {
+        assertEquals("replica_db", readTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void writeTransaction_goesToPrimary() {
+        assertEquals("primary_db", writeTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void afterWriteInRequest_readsArePinnedToPrimaryAndCookieIsSet() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        writeTransaction.execute(status -> currentDatabase());
+
+        assertEquals("primary_db", readTransaction.execute(status -> currentDatabase()));
+        assertNotNull(response.getCookie(PIN_COOKIE));
+    }
+
+    @Test
+    void pageReadOutsideServiceTransaction_goesToReplicaWithoutPin() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        // Как UserService.getAllUsers: сервис без транзакции, запрос — в read-only транзакции репозитория
+        String database = notSupported.execute(outer -> readTransaction.execute(status -> currentDatabase()));
+
+        assertEquals("replica_db", database);
+        assertNull(response.getCookie(PIN_COOKIE));
+        assertFalse(PrimaryPin.isPinned());
+    }
+
+    @Test
+    void nonTransactionalRead_doesNotPin() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        notSupported.execute(status -> currentDatabase());
+
+        assertNull(response.getCookie(PIN_COOKIE));
+        assertEquals("replica_db", readTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void pinCookie_routesReadsToPrimary() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new jakarta.servlet.http.Cookie(PIN_COOKIE, String.valueOf(System.currentTimeMillis() + 5_000)));
+        AtomicReference<String> database = new AtomicReference<>();
+
+        new PrimaryPinFilter(PIN_COOKIE).doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                database.set(readTransaction.execute(status -> currentDatabase()));
+            }
+        }));
+
+        assertEquals("primary_db", database.get());
+        assertFalse(PrimaryPin.isPinned());
+        assertEquals("replica_db", readTransaction.execute(status -> currentDatabase()));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT current_database()", String.class);
+    }
+
+    private static DataSource pool(PostgreSQLContainer<?> container) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(container.getJdbcUrl());
+        pool.setUsername(container.getUsername());
+        pool.setPassword(container.getPassword());
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+}
@@ -0,0 +1,126 @@
+package service;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import myapp.cache.UserCache;
+import myapp.cache.UserQueryFlights;
+import myapp.config.UserCacheProperties;
+import myapp.dto.OperationType;
+import myapp.dto.UserBatchItem;
+import myapp.dto.UserBatchItemResult;
+import myapp.dto.UserDto;
+import myapp.exceptions.ValidationException;
+import myapp.model.User;
+import myapp.repository.OutboxEventRepository;
+import myapp.repository.UserRepository;
+import myapp.service.UserBatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserBatchServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    void setUp() {
+        userBatchService = new UserBatchService(userRepository, validator, outboxEventRepository,
+                new UserCache(new UserCacheProperties(), new UserQueryFlights()));
+    }
+
+    @Test
+    void execute_mixedOperations_checksEmailsOnceAndReportsPerItem() {
+        User existing = User.builder().id(7L).name("Old").email("old@example.com").age(30).build();
+        when(userRepository.findAllById(Set.of(7L, 8L))).thenReturn(List.of(existing));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of("taken@example.com"));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(100L));
+            return users;
+        });
+
+        List<UserBatchItemResult> results = userBatchService.execute(List.of(
+                create("new@example.com"),
+                create("taken@example.com"),
+                create("new@example.com"),
+                UserBatchItem.builder().operation(OperationType.UPDATE).id(7L)
+                        .user(UserDto.builder().age(31).build()).build(),
+                UserBatchItem.builder().operation(OperationType.DELETE).id(8L).build()
+        ));
+
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(100L, results.get(0).getId());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(400, results.get(2).getStatus());
+        assertEquals(200, results.get(3).getStatus());
+        assertEquals(31, existing.getAge());
+        assertEquals(404, results.get(4).getStatus());
+
+        verify(userRepository, times(1)).findExistingEmails(anyCollection());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userRepository, never()).deleteAllByIdInBatch(any());
+        verify(outboxEventRepository).saveAll(argThat(events -> events.spliterator().getExactSizeIfKnown() == 2));
+    }
+
+    @Test
+    void execute_delete_removesInOneStatement() {
+        User first = User.builder().id(1L).name("A").email("a@example.com").age(20).build();
+        User second = User.builder().id(2L).name("B").email("b@example.com").age(25).build();
+        when(userRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+
+        List<UserBatchItemResult> results = userBatchService.execute(List.of(
+                UserBatchItem.builder().operation(OperationType.DELETE).id(1L).build(),
+                UserBatchItem.builder().operation(OperationType.DELETE).id(2L).build(),
+                UserBatchItem.builder().operation(OperationType.UPDATE).id(1L)
+                        .user(UserDto.builder().name("C").build()).build()
+        ));
+
+        assertEquals(204, results.get(0).getStatus());
+        assertEquals(204, results.get(1).getStatus());
+        assertEquals(404, results.get(2).getStatus());
+        verify(userRepository).deleteAllByIdInBatch(Set.of(1L, 2L));
+    }
+
+    @Test
+    void execute_emailTakenByConcurrentWriter_isValidationError() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        doThrow(new DataIntegrityViolationException("duplicate key", new SQLException("duplicate key", "23505")))
+                .when(userRepository).flush();
+
+        ValidationException error = assertThrows(ValidationException.class,
+                () -> userBatchService.execute(List.of(create("raced@example.com"))));
+
+        assertEquals("Email уже занят", error.getMessage());
+        verify(outboxEventRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void execute_otherIntegrityViolation_isNotTranslated() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        doThrow(new DataIntegrityViolationException("check", new SQLException("check", "23514")))
+                .when(userRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userBatchService.execute(List.of(create("a@example.com"))));
+    }
+
+    private static UserBatchItem create(String email) {
+        return UserBatchItem.builder()
+                .operation(OperationType.CREATE)
+                .user(UserDto.builder().name("Name").email(email).age(20).build())
+                .build();
+    }
+}
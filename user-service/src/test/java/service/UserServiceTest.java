@@ -1,17 +1,30 @@
 package service;
 
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import myapp.cache.UserCache;
+import myapp.cache.UserQueryFlights;
+import myapp.config.UserCacheProperties;
+import myapp.dto.OperationType;
 import myapp.dto.UserDto;
 import myapp.dto.UserResource;
+import myapp.exceptions.PreconditionFailedException;
 import myapp.exceptions.UserNotFoundException;
 import myapp.exceptions.ValidationException;
 import myapp.model.User;
+import myapp.repository.OutboxEventRepository;
 import myapp.repository.UserRepository;
+import myapp.repository.UserWriteRepository;
 import myapp.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +37,21 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserWriteRepository userWriteRepository;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private UserQueryFlights userQueryFlights = new UserQueryFlights();
+
+    @Spy
+    private UserCache userCache = new UserCache(new UserCacheProperties(), userQueryFlights);
+
     @InjectMocks
     private UserService userService; // Твой сервис с UserRepository и DTO
 
@@ -42,14 +70,16 @@ class UserServiceTest {
                 .age(dto.getAge())
                 .build();
 
-        when(userRepository.existsByEmail(dto.getEmail())).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(savedUser);
 
         UserResource result = userService.createUser(dto);
 
         assertNotNull(result);
         assertEquals(dto.getEmail(), result.getEmail());
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByEmail(any());
+        verify(outboxEventRepository).save(argThat(event ->
+                event.getOperation() == OperationType.CREATE && event.getUserId().equals(1L)));
     }
 
     @Test
@@ -61,7 +91,23 @@ class UserServiceTest {
                 .build();
 
         assertThrows(ValidationException.class, () -> userService.createUser(dto));
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createUser_duplicateEmail_translatesConstraintViolation() {
+        UserDto dto = UserDto.builder()
+                .name("Test")
+                .email("taken@example.com")
+                .age(25)
+                .build();
+
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(
+                new DataIntegrityViolationException("duplicate key", new SQLException("duplicate key", "23505")));
+
+        ValidationException ex = assertThrows(ValidationException.class, () -> userService.createUser(dto));
+        assertEquals("Email уже занят", ex.getMessage());
+        verifyNoInteractions(outboxEventRepository);
     }
 
     @Test
@@ -89,6 +135,25 @@ class UserServiceTest {
         verify(userRepository).findById(99L);
     }
 
+    @Test
+    void getUserById_repeatedLookups_hitCache() {
+        User user = User.builder().id(1L).name("User").email("user@example.com").age(30).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+
+        userService.getUserById(1L);
+        userService.getUserById(1L);
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(99L));
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(99L));
+
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findById(99L);
+
+        userCache.invalidateFromEvent(1L, System.currentTimeMillis());
+        userService.getUserById(1L);
+        verify(userRepository, times(2)).findById(1L);
+    }
+
     @Test
     void getAllUsers_returnsListOfDto() {
         List<User> users = List.of(
@@ -96,12 +161,12 @@ class UserServiceTest {
                 User.builder().id(2L).name("B").email("b@example.com").age(25).build()
         );
 
-        when(userRepository.findAll()).thenReturn(users);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 50))).thenReturn(users);
 
-        List<UserResource> resources = userService.getAllUsers();
+        List<UserResource> resources = userService.getAllUsers(0L, 50);
 
         assertEquals(2, resources.size());
-        verify(userRepository).findAll();
+        verify(userRepository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 50));
     }
 
     @Test
@@ -113,13 +178,6 @@ class UserServiceTest {
                 .age(40)
                 .build();
 
-        User existingUser = User.builder()
-                .id(id)
-                .name("OldName")
-                .email("oldemail@example.com")
-                .age(30)
-                .build();
-
         User updatedUser = User.builder()
                 .id(id)
                 .name(dto.getName())
@@ -127,16 +185,55 @@ class UserServiceTest {
                 .age(dto.getAge())
                 .build();
 
-        when(userRepository.findById(id)).thenReturn(Optional.of(existingUser));
-        when(userRepository.existsByEmail(dto.getEmail())).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenReturn(updatedUser);
+        when(userWriteRepository.updatePartial(id, dto.getName(), dto.getEmail(), dto.getAge()))
+                .thenReturn(Optional.of(updatedUser));
 
         UserResource result = userService.updateUser(id, dto);
 
         assertEquals(dto.getName(), result.getName());
         assertEquals(dto.getEmail(), result.getEmail());
         assertEquals(dto.getAge(), result.getAge());
-        verify(userRepository).save(existingUser);
+        verify(userRepository, never()).findById(any());
+        verify(outboxEventRepository).save(argThat(event ->
+                event.getOperation() == OperationType.UPDATE && event.getEmail().equals(dto.getEmail())));
+    }
+
+    @Test
+    void updateUser_expectedVersionMatches_updatesConditionally() {
+        Long id = 1L;
+        UserDto dto = UserDto.builder().name("NewName").build();
+        User updatedUser = User.builder().id(id).name("NewName").email("user@example.com").age(30).version(4L).build();
+
+        when(userWriteRepository.updatePartialIfVersion(id, 3L, "NewName", null, null))
+                .thenReturn(Optional.of(updatedUser));
+
+        UserResource result = userService.updateUser(id, dto, 3L);
+
+        assertEquals(4L, result.getVersion());
+        verify(userWriteRepository, never()).updatePartial(any(), any(), any(), any());
+    }
+
+    @Test
+    void updateUser_staleVersion_throwsPreconditionFailed() {
+        Long id = 1L;
+        UserDto dto = UserDto.builder().name("NewName").build();
+
+        when(userWriteRepository.updatePartialIfVersion(id, 3L, "NewName", null, null)).thenReturn(Optional.empty());
+        when(userRepository.existsById(id)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(id, dto, 3L));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    void updateUser_conditionalOnMissingUser_throwsNotFound() {
+        Long id = 1L;
+        UserDto dto = UserDto.builder().name("NewName").build();
+
+        when(userWriteRepository.updatePartialIfVersion(id, 3L, "NewName", null, null)).thenReturn(Optional.empty());
+        when(userRepository.existsById(id)).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(id, dto, 3L));
     }
 
     @Test
@@ -147,17 +244,20 @@ class UserServiceTest {
                 .email("bad-email")
                 .build();
 
-        User existingUser = User.builder()
-                .id(id)
-                .name("Name")
-                .email("email@example.com")
-                .age(25)
-                .build();
+        assertThrows(ValidationException.class, () -> userService.updateUser(id, dto));
+        verifyNoInteractions(userWriteRepository);
+    }
+
+    @Test
+    void updateUser_duplicateEmail_throwsValidationException() {
+        Long id = 1L;
+        UserDto dto = UserDto.builder().email("taken@example.com").build();
 
-        when(userRepository.findById(id)).thenReturn(Optional.of(existingUser));
+        when(userWriteRepository.updatePartial(id, null, dto.getEmail(), null))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
 
         assertThrows(ValidationException.class, () -> userService.updateUser(id, dto));
-        verify(userRepository, never()).save(any());
+        verifyNoInteractions(outboxEventRepository);
     }
 
     @Test
@@ -165,20 +265,23 @@ class UserServiceTest {
         Long id = 123L;
         UserDto dto = UserDto.builder().build();
 
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userWriteRepository.updatePartial(id, null, null, null)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.updateUser(id, dto));
-        verify(userRepository, never()).save(any());
+        verifyNoInteractions(outboxEventRepository);
     }
 
     @Test
-    void deleteUser_callsRepositoryDelete() {
+    void deleteUser_deletesWithSingleStatement() {
         Long id = 1L;
 
-        doNothing().when(userRepository).deleteById(id);
+        when(userWriteRepository.deleteReturning(id)).thenReturn(Optional.of(
+                User.builder().id(id).name("Name").email("email@example.com").age(25).build()));
 
         userService.deleteUser(id);
 
-        verify(userRepository).deleteById(id);
+        verify(userWriteRepository).deleteReturning(id);
+        verify(outboxEventRepository).save(argThat(event ->
+                event.getOperation() == OperationType.DELETE && event.getEmail().equals("email@example.com")));
     }
 }